@@ -0,0 +1,50 @@
+package cn.sysmaster.soundrecordmanager.benchmark;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+import cn.sysmaster.soundrecordmanager.utils.ByteUtils;
+import cn.sysmaster.soundrecordmanager.utils.WavUtils;
+
+/**
+ * 字节转换热点：PCM 转 short[]/double[] 与 WAV 头生成
+ *
+ * @author dabo
+ */
+@State(Scope.Thread)
+public class ByteUtilsBenchmark {
+
+    /**
+     * 采样点数
+     */
+    @Param({"512", "1024", "2048", "4096"})
+    public int samples;
+
+    private byte[] pcm;
+    private double[] doubles;
+
+    @Setup
+    public void setUp() {
+        pcm = PcmSamples.bytes(samples);
+        doubles = new double[samples];
+    }
+
+    @Benchmark
+    public short[] toShorts() {
+        return ByteUtils.toShorts(pcm);
+    }
+
+    @Benchmark
+    public double[] toDoubles() {
+        cn.sysmaster.soundrecordmanager.fftlib.ByteUtils.toDoubles(pcm, doubles, samples);
+        return doubles;
+    }
+
+    @Benchmark
+    public byte[] wavHeader() {
+        return WavUtils.generateWavFileHeader(pcm.length + 44, 16000, 1, 16);
+    }
+}
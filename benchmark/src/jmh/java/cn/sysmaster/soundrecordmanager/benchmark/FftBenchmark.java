@@ -0,0 +1,73 @@
+package cn.sysmaster.soundrecordmanager.benchmark;
+
+import java.util.Arrays;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+import cn.sysmaster.soundrecordmanager.fftlib.Complex;
+import cn.sysmaster.soundrecordmanager.fftlib.FFT;
+import cn.sysmaster.soundrecordmanager.fftlib.FftEngine;
+import cn.sysmaster.soundrecordmanager.fftlib.FftPlan;
+
+/**
+ * FFT 热点：旧的 Complex[] 接口、兼容的幅度谱接口与复用缓冲区的引擎
+ *
+ * @author dabo
+ */
+@State(Scope.Thread)
+public class FftBenchmark {
+
+    /**
+     * 帧长，包含2的幂与混合基长度
+     */
+    @Param({"512", "640", "1024", "2048", "4096"})
+    public int size;
+
+    private double[] samples;
+    private Complex[] complexSamples;
+    private FftEngine engine;
+    private double[] magnitude;
+    private double[] re;
+    private double[] im;
+
+    @Setup
+    public void setUp() {
+        samples = PcmSamples.doubles(size);
+        complexSamples = new Complex[size];
+        for (int i = 0; i < size; i++) {
+            complexSamples[i] = new Complex(samples[i], 0);
+        }
+        engine = new FftEngine(size);
+        magnitude = new double[engine.getBinCount()];
+        re = new double[size];
+        im = new double[size];
+    }
+
+    @Benchmark
+    public Complex[] complexArray() {
+        return FFT.fft(complexSamples);
+    }
+
+    @Benchmark
+    public double[] magnitudeApi() {
+        return FFT.fft(samples, 62);
+    }
+
+    @Benchmark
+    public double[] engineMagnitude() {
+        engine.magnitude(samples, 2.0 * 62 / size, magnitude);
+        return magnitude;
+    }
+
+    @Benchmark
+    public double[] complexPlanInPlace() {
+        System.arraycopy(samples, 0, re, 0, size);
+        Arrays.fill(im, 0);
+        FftPlan.get(size).transform(re, im);
+        return re;
+    }
+}
@@ -0,0 +1,82 @@
+package cn.sysmaster.soundrecordmanager.benchmark;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+import cn.sysmaster.soundrecordmanager.fftlib.FftEngine;
+import cn.sysmaster.soundrecordmanager.fftlib.FloatRealFftPlan;
+import cn.sysmaster.soundrecordmanager.fftlib.RealFftPlan;
+
+/**
+ * 单精度与双精度实数 FFT 幅度谱的速度对比
+ * <p>
+ * Setup 时打印两者幅度谱的最大绝对误差和相对于峰值的误差，作为精度对比。
+ *
+ * @author dabo
+ */
+@State(Scope.Thread)
+public class FloatFftBenchmark {
+
+    @Param({"512", "640", "1024", "2048", "4096"})
+    public int size;
+
+    private double[] doubleSamples;
+    private double[] doubleRe;
+    private double[] doubleIm;
+    private double[] doubleMagnitude;
+    private RealFftPlan doublePlan;
+
+    private float[] floatSamples;
+    private float[] floatRe;
+    private float[] floatIm;
+    private float[] floatMagnitude;
+    private FloatRealFftPlan floatPlan;
+
+    @Setup
+    public void setUp() {
+        doublePlan = RealFftPlan.get(size);
+        int bins = doublePlan.getBinCount();
+        doubleSamples = PcmSamples.doubles(size);
+        doubleRe = new double[bins];
+        doubleIm = new double[bins];
+        doubleMagnitude = new double[bins];
+
+        floatPlan = FloatRealFftPlan.get(size);
+        floatSamples = PcmSamples.floats(size);
+        floatRe = new float[bins];
+        floatIm = new float[bins];
+        floatMagnitude = new float[bins];
+
+        reportAccuracy();
+    }
+
+    private void reportAccuracy() {
+        double scale = 2.0 / size;
+        doublePlan.magnitude(doubleSamples, scale, doubleRe, doubleIm, doubleMagnitude);
+        floatPlan.magnitude(floatSamples, (float) scale, floatRe, floatIm, floatMagnitude);
+        double maxError = 0;
+        double peak = 0;
+        for (int i = 0; i < doubleMagnitude.length; i++) {
+            maxError = Math.max(maxError, Math.abs(doubleMagnitude[i] - floatMagnitude[i]));
+            peak = Math.max(peak, doubleMagnitude[i]);
+        }
+        System.out.println(String.format("size=%d float vs double: max abs error %.3e, relative to peak %.3e",
+                size, maxError, maxError / peak));
+    }
+
+    @Benchmark
+    public double[] doubleMagnitude() {
+        doublePlan.magnitude(doubleSamples, 2.0 / size, doubleRe, doubleIm, doubleMagnitude);
+        return doubleMagnitude;
+    }
+
+    @Benchmark
+    public float[] floatMagnitude() {
+        floatPlan.transform(floatSamples, floatRe, floatIm);
+        FftEngine.magnitude(floatRe, floatIm, 2.0f / size, floatMagnitude, floatMagnitude.length);
+        return floatMagnitude;
+    }
+}
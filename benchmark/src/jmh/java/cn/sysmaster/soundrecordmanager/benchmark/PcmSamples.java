@@ -0,0 +1,48 @@
+package cn.sysmaster.soundrecordmanager.benchmark;
+
+import java.util.Random;
+
+/**
+ * 基准测试用的 16bit 单声道测试信号：两个正弦叠加白噪声
+ *
+ * @author dabo
+ */
+final class PcmSamples {
+
+    private static final int SAMPLE_RATE = 16000;
+
+    private PcmSamples() {
+    }
+
+    static double[] doubles(int count) {
+        Random random = new Random(42);
+        double[] samples = new double[count];
+        for (int i = 0; i < count; i++) {
+            double t = (double) i / SAMPLE_RATE;
+            samples[i] = 8000 * Math.sin(2 * Math.PI * 440 * t)
+                    + 3000 * Math.sin(2 * Math.PI * 2500 * t)
+                    + 500 * random.nextGaussian();
+        }
+        return samples;
+    }
+
+    static float[] floats(int count) {
+        double[] samples = doubles(count);
+        float[] result = new float[count];
+        for (int i = 0; i < count; i++) {
+            result[i] = (float) samples[i];
+        }
+        return result;
+    }
+
+    static byte[] bytes(int count) {
+        double[] samples = doubles(count);
+        byte[] result = new byte[count * 2];
+        for (int i = 0; i < count; i++) {
+            short s = (short) Math.max(Short.MIN_VALUE, Math.min(Short.MAX_VALUE, samples[i]));
+            result[i * 2] = (byte) s;
+            result[i * 2 + 1] = (byte) (s >> 8);
+        }
+        return result;
+    }
+}
@@ -0,0 +1,103 @@
+package cn.sysmaster.soundrecordmanager.benchmark;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import cn.sysmaster.soundrecordmanager.SoundRecordState;
+import cn.sysmaster.soundrecordmanager.core.RecordConfig;
+import cn.sysmaster.soundrecordmanager.core.SoundRecorder;
+import cn.sysmaster.soundrecordmanager.listener.OnRecordFftDataListener;
+import cn.sysmaster.soundrecordmanager.listener.OnRecordStateListener;
+import cn.sysmaster.soundrecordmanager.source.SyntheticAudioSource;
+
+/**
+ * 完整录音流程：合成数据源不限速输出 10 秒音频，经过采集、频谱分析、写文件与 WAV 头回填
+ * <p>
+ * 实时倍率 = 10 秒 / 单次耗时；每次运行结束后打印引擎自身统计的实时倍率。
+ *
+ * @author dabo
+ */
+@State(Scope.Thread)
+public class PipelineBenchmark {
+
+    private static final long DURATION_MS = 10000;
+
+    @Param({"SINE", "NOISE"})
+    public SyntheticAudioSource.Waveform waveform;
+
+    /**
+     * 是否开启可视化频谱
+     */
+    @Param({"false", "true"})
+    public boolean fft;
+
+    private File dir;
+    private SoundRecorder recorder;
+    private volatile CountDownLatch done;
+
+    @Setup
+    public void setUp() throws IOException {
+        dir = File.createTempFile("pipeline", "");
+        dir.delete();
+        dir.mkdirs();
+        recorder = new SoundRecorder(RecordConfig.Builder.create(dir.getAbsolutePath() + File.separator).build());
+        recorder.setRecordStateListener(new OnRecordStateListener() {
+            @Override
+            public void onStateChange(int state) {
+                if (state == SoundRecordState.IDLE) {
+                    done.countDown();
+                }
+            }
+
+            @Override
+            public void onError(String error) {
+                System.err.println(error);
+            }
+        });
+        if (fft) {
+            recorder.setRecordFftDataListener(new OnRecordFftDataListener() {
+                @Override
+                public void onFftData(byte[] fftData) {
+                }
+            });
+        }
+    }
+
+    @TearDown
+    public void tearDown() {
+        System.out.println("\n" + recorder.getStats());
+        File[] files = dir.listFiles();
+        if (files != null) {
+            for (File file : files) {
+                File[] children = file.listFiles();
+                if (children != null) {
+                    for (File child : children) {
+                        child.delete();
+                    }
+                }
+                file.delete();
+            }
+        }
+        dir.delete();
+    }
+
+    @Benchmark
+    public long record() throws InterruptedException {
+        done = new CountDownLatch(1);
+        recorder.setAudioSource(new SyntheticAudioSource(waveform, 16000, 1, 16, DURATION_MS));
+        recorder.start();
+        if (!done.await(60, TimeUnit.SECONDS)) {
+            throw new IllegalStateException("record timeout");
+        }
+        return recorder.getStats().getCapturedBytes();
+    }
+}
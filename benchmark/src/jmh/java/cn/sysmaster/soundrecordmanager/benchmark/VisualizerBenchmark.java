@@ -0,0 +1,74 @@
+package cn.sysmaster.soundrecordmanager.benchmark;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+import cn.sysmaster.soundrecordmanager.fftlib.FftPrecision;
+import cn.sysmaster.soundrecordmanager.fftlib.SpectrumVisualizer;
+import cn.sysmaster.soundrecordmanager.fftlib.StftProcessor;
+import cn.sysmaster.soundrecordmanager.fftlib.WindowFunction;
+
+/**
+ * 录音可视化链路：STFT 分帧分析、makeData 压缩与 getDb 音量估算
+ *
+ * @author dabo
+ */
+@State(Scope.Thread)
+public class VisualizerBenchmark {
+
+    /**
+     * FFT 帧长
+     */
+    @Param({"512", "1024", "2048", "4096"})
+    public int frameSize;
+
+    @Param({"DOUBLE", "FLOAT"})
+    public FftPrecision precision;
+
+    /**
+     * 一次 AudioRecord.read 的数据量：16kHz 单声道下 getMinBufferSize 通常为 1280 字节
+     */
+    private byte[] buffer;
+    private double[] spectrum;
+    private byte[] fftData;
+    private StftProcessor stftProcessor;
+    private SpectrumVisualizer visualizer;
+
+    @Setup
+    public void setUp() {
+        buffer = PcmSamples.bytes(640);
+        spectrum = new double[frameSize / 2 + 1];
+        System.arraycopy(PcmSamples.doubles(spectrum.length), 0, spectrum, 0, spectrum.length);
+        visualizer = new SpectrumVisualizer();
+        fftData = visualizer.makeData(spectrum, spectrum.length);
+        stftProcessor = new StftProcessor(frameSize, frameSize / 2, WindowFunction.HANN, 1, 16, precision);
+        stftProcessor.setOnSpectrumListener(new StftProcessor.OnSpectrumListener() {
+            @Override
+            public void onSpectrum(double[] magnitude, int binCount) {
+                fftData = visualizer.makeData(magnitude, binCount);
+            }
+        });
+    }
+
+    /**
+     * 写入一次读取的数据，按帧移触发 0 或多次 FFT
+     */
+    @Benchmark
+    public byte[] stftWrite() {
+        stftProcessor.write(buffer, 0, buffer.length);
+        return fftData;
+    }
+
+    @Benchmark
+    public byte[] makeData() {
+        return visualizer.makeData(spectrum, spectrum.length);
+    }
+
+    @Benchmark
+    public int getDb() {
+        return SpectrumVisualizer.getDb(fftData);
+    }
+}
@@ -0,0 +1,186 @@
+package cn.sysmaster.soundrecordmanager.core;
+
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.locks.LockSupport;
+
+import cn.sysmaster.soundrecordmanager.fftlib.SpectrumVisualizer;
+import cn.sysmaster.soundrecordmanager.fftlib.StftProcessor;
+
+/**
+ * @author dabo
+ * @describe 频谱分析线程
+ * <p>
+ * 采集线程把共享的 {@link AudioFrame} 放入分析队列后立即返回，STFT、makeData、getDb 都在本线程完成，
+ * 每轮处理完队列后把最新的可视化数据交给 {@link DisplayDispatcher}，由其按刷新率合并投递。音量由采集线程的 {@link LevelMeter} 计算。
+ * 分析跟不上时丢弃过期的帧，只保留足够计算一帧频谱的最新数据，不排队。
+ */
+class AnalysisWorker extends Thread {
+
+    /**
+     * 分析结果
+     */
+    interface OnAnalysisListener {
+        /**
+         * 在分析线程中调用
+         *
+         * @param fftData 可视化数据
+         */
+        void onAnalysis(byte[] fftData);
+    }
+
+    /**
+     * 队列容量，帧数
+     */
+    private static final int QUEUE_FRAMES = 16;
+    /**
+     * 空闲时最长等待时间
+     */
+    private static final long IDLE_PARK_NANOS = 20000000L;
+
+    /**
+     * 数据不连续的标记，不属于任何帧池，不计引用
+     */
+    private static final AudioFrame DISCONTINUITY = new AudioFrame(null, 1);
+
+    private final ArrayBlockingQueue<AudioFrame> mQueue;
+    private final StftProcessor mStftProcessor;
+    private final SpectrumVisualizer mSpectrumVisualizer = new SpectrumVisualizer();
+    private final OnAnalysisListener mListener;
+    private final RecordStats mStats;
+
+    /**
+     * 队列积压超过该帧数时丢弃更早的帧
+     */
+    private final int mKeepFrames;
+
+    private volatile boolean mQuit = false;
+
+    /**
+     * 本轮处理中最新的可视化数据
+     */
+    private byte[] mLatest;
+
+    /**
+     * @param stftProcessor    频谱分析，只在本线程中使用
+     * @param frameSize        采集数据的单帧字节数
+     * @param bytesPerFrame    每个采样点（含所有声道）的字节数
+     * @param listener         分析结果回调
+     * @param stats            统计
+     */
+    AnalysisWorker(StftProcessor stftProcessor, int frameSize, int bytesPerFrame,
+                   OnAnalysisListener listener, RecordStats stats) {
+        super("SoundRecord-Analysis");
+        this.mQueue = new ArrayBlockingQueue<>(QUEUE_FRAMES);
+        this.mStftProcessor = stftProcessor;
+        this.mListener = listener;
+        this.mStats = stats;
+        // 保留一个 FFT 帧所需的数据量再多一帧
+        int fftBytes = stftProcessor.getFrameSize() * bytesPerFrame;
+        this.mKeepFrames = Math.min(QUEUE_FRAMES - 1, (fftBytes + frameSize - 1) / frameSize + 1);
+        mStftProcessor.setOnSpectrumListener(new StftProcessor.OnSpectrumListener() {
+            @Override
+            public void onSpectrum(double[] magnitude, int binCount) {
+                byte[] fftData = mSpectrumVisualizer.makeData(magnitude, binCount);
+                if (fftData != null) {
+                    mLatest = fftData;
+                }
+            }
+        });
+    }
+
+    /**
+     * 采集线程调用：把帧放入分析队列，分析线程持有一次引用；队列满时丢弃，从不阻塞
+     */
+    void offer(AudioFrame frame) {
+        if (frame.getLength() <= 0 || mQuit) {
+            return;
+        }
+        frame.retain();
+        if (!mQueue.offer(frame)) {
+            frame.release();
+            mStats.onAnalysisDropped(1);
+            return;
+        }
+        if (mQuit) {
+            // 分析线程可能已经退出
+            drain();
+        }
+        LockSupport.unpark(this);
+    }
+
+    /**
+     * 采集线程调用：数据不连续（例如暂停后继续），之后的数据重新分帧
+     */
+    void discontinuity() {
+        if (mQueue.offer(DISCONTINUITY)) {
+            LockSupport.unpark(this);
+        }
+    }
+
+    /**
+     * 结束分析线程，丢弃未处理的数据
+     */
+    void quit() {
+        mQuit = true;
+        LockSupport.unpark(this);
+    }
+
+    @Override
+    public void run() {
+        while (!mQuit) {
+            if (mQueue.isEmpty()) {
+                LockSupport.parkNanos(this, IDLE_PARK_NANOS);
+                continue;
+            }
+            int backlog = mQueue.size();
+            if (backlog > mKeepFrames) {
+                // 跟不上时跳过过期的帧，跳过的数据与后面的数据不连续
+                int skip = backlog - mKeepFrames;
+                for (int i = 0; i < skip; i++) {
+                    release(mQueue.poll());
+                }
+                mStftProcessor.reset();
+                mStats.onAnalysisDropped(skip);
+            }
+            AudioFrame frame;
+            while (!mQuit && (frame = mQueue.poll()) != null) {
+                if (frame == DISCONTINUITY) {
+                    mStftProcessor.reset();
+                } else {
+                    mStftProcessor.write(frame.getData(), 0, frame.getLength());
+                    frame.release();
+                }
+            }
+            deliver();
+        }
+        drain();
+    }
+
+    /**
+     * 归还队列中未处理的帧
+     */
+    private void drain() {
+        AudioFrame frame;
+        while ((frame = mQueue.poll()) != null) {
+            release(frame);
+        }
+    }
+
+    private static void release(AudioFrame frame) {
+        if (frame != null && frame != DISCONTINUITY) {
+            frame.release();
+        }
+    }
+
+    /**
+     * 每轮只输出最新的结果
+     */
+    private void deliver() {
+        byte[] fftData = mLatest;
+        if (fftData == null || mQuit) {
+            return;
+        }
+        mLatest = null;
+        mListener.onAnalysis(fftData);
+    }
+}
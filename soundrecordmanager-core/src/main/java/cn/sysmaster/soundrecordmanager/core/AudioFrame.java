@@ -0,0 +1,78 @@
+package cn.sysmaster.soundrecordmanager.core;
+
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * @author dabo
+ * @describe 引用计数的音频帧，来自 {@link AudioFramePool}
+ * <p>
+ * 采集线程填充数据后不再修改，数据回调、频谱分析等多个使用方共享同一帧，不复制。
+ * 每个使用方在持有期间 {@link #retain()} 一次，用完后 {@link #release()}，计数归零时回到帧池。
+ * 释放后不得再访问 {@link #getData()}。
+ */
+public final class AudioFrame {
+
+    private final byte[] mData;
+    private final AudioFramePool mPool;
+    private final AtomicInteger mRefCount = new AtomicInteger();
+    private int mLength;
+
+    AudioFrame(AudioFramePool pool, int frameSize) {
+        this.mPool = pool;
+        this.mData = new byte[frameSize];
+    }
+
+    /**
+     * 从帧池取出时由帧池调用
+     */
+    void acquire() {
+        mRefCount.set(1);
+    }
+
+    /**
+     * 采集线程在共享之前填充数据
+     */
+    void set(byte[] data, int length) {
+        System.arraycopy(data, 0, mData, 0, length);
+        mLength = length;
+    }
+
+    /**
+     * @return 帧数据，有效长度见 {@link #getLength()}，只读
+     */
+    public byte[] getData() {
+        return mData;
+    }
+
+    /**
+     * @return 有效字节数
+     */
+    public int getLength() {
+        return mLength;
+    }
+
+    /**
+     * 增加一次引用，须由已持有引用的一方调用
+     *
+     * @return this
+     */
+    public AudioFrame retain() {
+        if (mRefCount.getAndIncrement() <= 0) {
+            throw new IllegalStateException("frame already released");
+        }
+        return this;
+    }
+
+    /**
+     * 释放一次引用，最后一次释放时回到帧池
+     */
+    public void release() {
+        int count = mRefCount.decrementAndGet();
+        if (count == 0) {
+            mLength = 0;
+            mPool.recycle(this);
+        } else if (count < 0) {
+            throw new IllegalStateException("frame released too many times");
+        }
+    }
+}
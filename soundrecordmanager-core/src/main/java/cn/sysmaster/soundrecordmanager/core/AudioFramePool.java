@@ -0,0 +1,59 @@
+package cn.sysmaster.soundrecordmanager.core;
+
+import java.util.concurrent.ArrayBlockingQueue;
+
+/**
+ * @author dabo
+ * @describe 预分配的 {@link AudioFrame} 池
+ * <p>
+ * 录音过程中不再分配帧；帧可在任意线程释放。
+ * 取帧不阻塞，所有帧都被占用（例如回调线程积压）时 {@link #acquire()} 返回 null，由调用方丢弃本次分发。
+ */
+public final class AudioFramePool {
+
+    private final ArrayBlockingQueue<AudioFrame> mFree;
+    private final int mFrameSize;
+
+    /**
+     * @param capacity  帧数
+     * @param frameSize 每帧字节数
+     */
+    public AudioFramePool(int capacity, int frameSize) {
+        if (capacity <= 0 || frameSize <= 0) {
+            throw new IllegalArgumentException("capacity=" + capacity + ", frameSize=" + frameSize);
+        }
+        mFree = new ArrayBlockingQueue<>(capacity);
+        for (int i = 0; i < capacity; i++) {
+            mFree.offer(new AudioFrame(this, frameSize));
+        }
+        mFrameSize = frameSize;
+    }
+
+    /**
+     * 取得一个空闲帧，引用计数为 1
+     *
+     * @return 空闲帧，没有空闲帧时返回 null
+     */
+    public AudioFrame acquire() {
+        AudioFrame frame = mFree.poll();
+        if (frame != null) {
+            frame.acquire();
+        }
+        return frame;
+    }
+
+    void recycle(AudioFrame frame) {
+        mFree.offer(frame);
+    }
+
+    /**
+     * @return 当前空闲帧数
+     */
+    public int available() {
+        return mFree.size();
+    }
+
+    public int getFrameSize() {
+        return mFrameSize;
+    }
+}
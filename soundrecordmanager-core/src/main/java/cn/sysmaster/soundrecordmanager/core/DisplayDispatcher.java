@@ -0,0 +1,129 @@
+package cn.sysmaster.soundrecordmanager.core;
+
+import java.util.concurrent.Executor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * @author dabo
+ * @describe 按显示刷新率合并投递音量、频谱与计时回调
+ * <p>
+ * 各工作线程只更新最新值，同一时刻最多只有一个待执行的投递，两次投递间隔不小于 1 / 刷新率；
+ * 一次投递中回调所有有更新的监听；不同执行器的回调各用一个实例。两个 Runnable 都是复用的，
+ * 回调线程的开销只与刷新率有关，与采集缓冲区大小、频谱帧移无关。
+ */
+final class DisplayDispatcher {
+
+    /**
+     * 在回调执行器中调用
+     */
+    interface Target {
+        void onLevel(int db);
+
+        void onSpectrum(byte[] fftData);
+
+        void onTick(long millis);
+    }
+
+    private static final int LEVEL = 1;
+    private static final int SPECTRUM = 1 << 1;
+    private static final int TICK = 1 << 2;
+
+    private final Executor mCallbackExecutor;
+    private final Target mTarget;
+    private final long mIntervalNanos;
+
+    /**
+     * 有更新的回调类型
+     */
+    private final AtomicInteger mDirty = new AtomicInteger();
+    /**
+     * 是否已有待执行的投递
+     */
+    private final AtomicBoolean mScheduled = new AtomicBoolean();
+
+    private volatile int mLevel;
+    private volatile byte[] mSpectrum;
+    private volatile long mTick;
+    private volatile long mLastDispatchNanos;
+
+    private final Runnable mPostRunnable = new Runnable() {
+        @Override
+        public void run() {
+            mCallbackExecutor.execute(mDispatchRunnable);
+        }
+    };
+
+    private final Runnable mDispatchRunnable = new Runnable() {
+        @Override
+        public void run() {
+            mLastDispatchNanos = System.nanoTime();
+            // 先清除标记再读取，之后的更新会重新投递
+            mScheduled.set(false);
+            int dirty = mDirty.getAndSet(0);
+            if ((dirty & LEVEL) != 0) {
+                mTarget.onLevel(mLevel);
+            }
+            if ((dirty & SPECTRUM) != 0) {
+                mTarget.onSpectrum(mSpectrum);
+            }
+            if ((dirty & TICK) != 0) {
+                mTarget.onTick(mTick);
+            }
+        }
+    };
+
+    /**
+     * @param callbackExecutor 回调执行器
+     * @param rateHz           每秒最多投递次数，0 为不限制（仍然合并）
+     * @param target           回调
+     */
+    DisplayDispatcher(Executor callbackExecutor, int rateHz, Target target) {
+        this.mCallbackExecutor = callbackExecutor;
+        this.mTarget = target;
+        this.mIntervalNanos = rateHz > 0 ? TimeUnit.SECONDS.toNanos(1) / rateHz : 0;
+        this.mLastDispatchNanos = System.nanoTime() - mIntervalNanos;
+    }
+
+    void postLevel(int db) {
+        mLevel = db;
+        markDirty(LEVEL);
+    }
+
+    void postSpectrum(byte[] fftData) {
+        mSpectrum = fftData;
+        markDirty(SPECTRUM);
+    }
+
+    void postTick(long millis) {
+        mTick = millis;
+        markDirty(TICK);
+    }
+
+    /**
+     * 丢弃尚未投递的计时回调，由调用方随后直接回调最终值，避免过期的计时晚于最终值到达
+     */
+    void clearTick() {
+        int dirty;
+        do {
+            dirty = mDirty.get();
+        } while ((dirty & TICK) != 0 && !mDirty.compareAndSet(dirty, dirty & ~TICK));
+    }
+
+    private void markDirty(int flags) {
+        int dirty;
+        do {
+            dirty = mDirty.get();
+        } while ((dirty & flags) != flags && !mDirty.compareAndSet(dirty, dirty | flags));
+        if (!mScheduled.compareAndSet(false, true)) {
+            return;
+        }
+        long delay = mLastDispatchNanos + mIntervalNanos - System.nanoTime();
+        if (delay <= 0) {
+            mCallbackExecutor.execute(mDispatchRunnable);
+        } else {
+            RecordScheduler.get().schedule(mPostRunnable, delay, TimeUnit.NANOSECONDS);
+        }
+    }
+}
@@ -0,0 +1,101 @@
+package cn.sysmaster.soundrecordmanager.core;
+
+/**
+ * @author dabo
+ * @describe 录音文件的刷盘策略
+ * <p>
+ * 写入的数据先在 {@link RecordingWriter} 的缓冲区中合并，缓冲区写满时整块写入文件；
+ * 刷盘策略决定在缓冲区未满时何时提前写入，以及是否调用 FileChannel.force 同步到存储设备。
+ * <ul>
+ * <li>{@link #onStop(boolean)}：只在缓冲区写满和停止时写入，系统调用最少</li>
+ * <li>{@link #everyMillis(long, boolean)}：按时间间隔写入，异常退出时最多丢失一个间隔的数据</li>
+ * <li>{@link #everyBytes(long, boolean)}：按累计字节数写入</li>
+ * </ul>
+ */
+public final class FlushPolicy {
+
+    /**
+     * 触发方式
+     */
+    public enum Trigger {
+        /**
+         * 只在停止时
+         */
+        STOP,
+        /**
+         * 按时间间隔
+         */
+        INTERVAL,
+        /**
+         * 按字节数
+         */
+        BYTES
+    }
+
+    /**
+     * 默认：只在停止时写入，不强制同步
+     */
+    public static final FlushPolicy DEFAULT = onStop(false);
+
+    private final Trigger mTrigger;
+    private final long mThreshold;
+    private final boolean mForce;
+
+    private FlushPolicy(Trigger trigger, long threshold, boolean force) {
+        this.mTrigger = trigger;
+        this.mThreshold = threshold;
+        this.mForce = force;
+    }
+
+    /**
+     * @param force 停止时是否同步到存储设备
+     */
+    public static FlushPolicy onStop(boolean force) {
+        return new FlushPolicy(Trigger.STOP, 0, force);
+    }
+
+    /**
+     * @param intervalMs 写入间隔，毫秒
+     * @param force      每次写入后是否同步到存储设备
+     */
+    public static FlushPolicy everyMillis(long intervalMs, boolean force) {
+        if (intervalMs <= 0) {
+            throw new IllegalArgumentException("intervalMs must be > 0: " + intervalMs);
+        }
+        return new FlushPolicy(Trigger.INTERVAL, intervalMs, force);
+    }
+
+    /**
+     * @param bytes 累计多少字节写入一次
+     * @param force 每次写入后是否同步到存储设备
+     */
+    public static FlushPolicy everyBytes(long bytes, boolean force) {
+        if (bytes <= 0) {
+            throw new IllegalArgumentException("bytes must be > 0: " + bytes);
+        }
+        return new FlushPolicy(Trigger.BYTES, bytes, force);
+    }
+
+    public Trigger getTrigger() {
+        return mTrigger;
+    }
+
+    /**
+     * @return INTERVAL 为毫秒，BYTES 为字节数，STOP 为0
+     */
+    public long getThreshold() {
+        return mThreshold;
+    }
+
+    /**
+     * @return 是否调用 FileChannel.force 同步到存储设备
+     */
+    public boolean isForce() {
+        return mForce;
+    }
+
+    @Override
+    public String toString() {
+        return "FlushPolicy{" + mTrigger + ", threshold=" + mThreshold + ", force=" + mForce + "}";
+    }
+}
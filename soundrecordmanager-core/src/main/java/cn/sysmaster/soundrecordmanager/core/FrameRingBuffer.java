@@ -0,0 +1,164 @@
+package cn.sysmaster.soundrecordmanager.core;
+
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * @author dabo
+ * @describe 单生产者 / 单消费者无锁环形队列，槽位为预分配的 PCM 帧
+ * <p>
+ * 生产者（采集线程）：{@link #claim()} 取得空闲帧直接读入数据，{@link #publish(int)} 提交；
+ * 队列满时 claim 返回 null，由调用方丢弃本帧，采集线程永远不会因消费者阻塞。
+ * 消费者（写文件线程）：{@link #peek()} 取得最早的帧，处理完后 {@link #release()} 归还。
+ * <p>
+ * 生产者可用 {@link #markSegmentEnd()} 标记录音片段的结尾，消费者处理到该位置时收尾，不需要为每个片段重建消费者。
+ * <p>
+ * head / tail 只由各自一端写入，使用 lazySet 发布；两端各缓存一份对方的位置，减少跨核读取。
+ */
+public final class FrameRingBuffer {
+
+    private final byte[][] mFrames;
+    private final int[] mLengths;
+    private final int mMask;
+    private final int mFrameSize;
+
+    /**
+     * 下一个写入位置，只由生产者修改
+     */
+    private final AtomicLong mHead = new AtomicLong();
+    /**
+     * 下一个读取位置，只由消费者修改
+     */
+    private final AtomicLong mTail = new AtomicLong();
+
+    /**
+     * 最近一次标记的片段结尾，即标记时的 head，尚未标记时为 -1；只由生产者修改
+     */
+    private volatile long mSegmentEnd = -1;
+
+    /**
+     * 生产者缓存的 tail
+     */
+    private long mCachedTail;
+    /**
+     * 消费者缓存的 head
+     */
+    private long mCachedHead;
+
+    /**
+     * @param capacity  帧数，向上取整为2的幂
+     * @param frameSize 每帧字节数
+     */
+    public FrameRingBuffer(int capacity, int frameSize) {
+        if (capacity <= 0 || frameSize <= 0) {
+            throw new IllegalArgumentException("capacity=" + capacity + ", frameSize=" + frameSize);
+        }
+        int size = Integer.highestOneBit(capacity);
+        if (size < capacity) {
+            size <<= 1;
+        }
+        mFrames = new byte[size][frameSize];
+        mLengths = new int[size];
+        mMask = size - 1;
+        mFrameSize = frameSize;
+    }
+
+    /**
+     * 生产者：取得下一个空闲帧
+     *
+     * @return 可写入的帧，队列满时返回 null
+     */
+    public byte[] claim() {
+        long head = mHead.get();
+        if (head - mCachedTail > mMask) {
+            mCachedTail = mTail.get();
+            if (head - mCachedTail > mMask) {
+                return null;
+            }
+        }
+        return mFrames[(int) head & mMask];
+    }
+
+    /**
+     * 生产者：提交 {@link #claim()} 取得的帧
+     *
+     * @param length 帧内有效字节数
+     */
+    public void publish(int length) {
+        long head = mHead.get();
+        mLengths[(int) head & mMask] = length;
+        mHead.lazySet(head + 1);
+    }
+
+    /**
+     * 生产者：已提交的帧为一个片段的结尾（暂停或停止）
+     */
+    public void markSegmentEnd() {
+        mSegmentEnd = mHead.get();
+    }
+
+    /**
+     * @return 最近一次标记的片段结尾，尚未标记时为 -1；连续标记时只保留最后一次
+     */
+    public long getSegmentEnd() {
+        return mSegmentEnd;
+    }
+
+    /**
+     * 消费者：位置 position 之前的帧是否都已归还
+     *
+     * @param position {@link #getSegmentEnd()} 返回的位置
+     */
+    public boolean isConsumed(long position) {
+        return position >= 0 && mTail.get() >= position;
+    }
+
+    /**
+     * 消费者：取得最早提交的帧，不移除
+     *
+     * @return 帧数据，队列空时返回 null；有效长度见 {@link #peekLength()}
+     */
+    public byte[] peek() {
+        long tail = mTail.get();
+        if (tail >= mCachedHead) {
+            mCachedHead = mHead.get();
+            if (tail >= mCachedHead) {
+                return null;
+            }
+        }
+        return mFrames[(int) tail & mMask];
+    }
+
+    /**
+     * 消费者：{@link #peek()} 返回的帧的有效字节数
+     */
+    public int peekLength() {
+        return mLengths[(int) mTail.get() & mMask];
+    }
+
+    /**
+     * 消费者：归还 {@link #peek()} 返回的帧
+     */
+    public void release() {
+        mTail.lazySet(mTail.get() + 1);
+    }
+
+    /**
+     * @return 当前占用的帧数，任意线程可读，为近似值
+     */
+    public int size() {
+        long size = mHead.get() - mTail.get();
+        return (int) Math.max(0, Math.min(size, mMask + 1));
+    }
+
+    public boolean isEmpty() {
+        return mHead.get() == mTail.get();
+    }
+
+    public int getCapacity() {
+        return mMask + 1;
+    }
+
+    public int getFrameSize() {
+        return mFrameSize;
+    }
+}
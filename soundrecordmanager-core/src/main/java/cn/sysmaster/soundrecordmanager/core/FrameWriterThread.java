@@ -0,0 +1,100 @@
+package cn.sysmaster.soundrecordmanager.core;
+
+import java.io.IOException;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * @author dabo
+ * @describe 写文件线程：从 {@link FrameRingBuffer} 取帧，经 {@link RecordingWriter} 批量写入录音文件
+ * <p>
+ * 每次录音一个线程，暂停后继续不重新创建；片段的结尾（暂停或停止）由采集线程在队列中标记，
+ * 写到标记处时刷盘。RecordingWriter 由录音引擎关闭。
+ * <p>
+ * 采集线程只负责读数据入队，磁盘写入的卡顿不会拖慢下一次 read。
+ * 队列为空时 park 等待，采集线程提交数据后 {@link #wakeUp()}。
+ */
+class FrameWriterThread extends Thread {
+
+    /**
+     * 空闲时最长等待时间，防止错过唤醒
+     */
+    private static final long IDLE_PARK_NANOS = 10000000L;
+
+    private final FrameRingBuffer mRing;
+    private final RecordingWriter mWriter;
+
+    private volatile boolean mFinishing = false;
+    private volatile IOException mError;
+
+    FrameWriterThread(FrameRingBuffer ring, RecordingWriter writer) {
+        super("SoundRecord-Writer");
+        this.mRing = ring;
+        this.mWriter = writer;
+    }
+
+    @Override
+    public void run() {
+        RecordingWriter writer = mWriter;
+        // 已刷盘的片段结尾
+        long flushedSegmentEnd = -1;
+        try {
+            while (true) {
+                byte[] frame = mRing.peek();
+                if (frame == null) {
+                    long segmentEnd = mRing.getSegmentEnd();
+                    if (segmentEnd != flushedSegmentEnd && mRing.isConsumed(segmentEnd)) {
+                        // 暂停期间数据也已写入文件
+                        writer.flush();
+                        flushedSegmentEnd = segmentEnd;
+                        continue;
+                    }
+                    if (mFinishing && mRing.isEmpty()) {
+                        break;
+                    }
+                    writer.onIdle();
+                    LockSupport.parkNanos(this, IDLE_PARK_NANOS);
+                    continue;
+                }
+                writer.write(frame, 0, mRing.peekLength());
+                mRing.release();
+            }
+            writer.flush();
+        } catch (IOException e) {
+            // 由采集线程检查并结束录音
+            mError = e;
+        }
+    }
+
+    /**
+     * 采集线程提交数据后调用
+     */
+    void wakeUp() {
+        LockSupport.unpark(this);
+    }
+
+    /**
+     * 写入队列中剩余的数据后结束，阻塞直到写入完成
+     *
+     * @throws IOException 写文件失败
+     */
+    void finish() throws IOException {
+        mFinishing = true;
+        LockSupport.unpark(this);
+        try {
+            join();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IOException("interrupted while writing");
+        }
+        if (mError != null) {
+            throw mError;
+        }
+    }
+
+    /**
+     * @return 写文件失败的异常，没有失败时为 null
+     */
+    IOException getError() {
+        return mError;
+    }
+}
@@ -0,0 +1,200 @@
+package cn.sysmaster.soundrecordmanager.core;
+
+/**
+ * @author dabo
+ * @describe 原始 PCM 的电平表：按固定窗口统计峰值与均方根（RMS），换算为 dBFS
+ * <p>
+ * 由采集线程对每块读到的数据调用 {@link #process(byte[], int, int)}，逐个采样累加平方和与最大幅度，
+ * 不分配内存、不依赖 FFT。每满一个窗口更新一次结果，可选按起音 / 释音时间平滑：
+ * 电平上升时按起音时间、下降时按释音时间逼近新值，时间为 0 时不平滑。
+ * 结果字段只在窗口结束时写入，可在其他线程读取。
+ */
+public final class LevelMeter {
+
+    /**
+     * 最低电平，低于此值（含静音）按此值计，约为 16 位 PCM 的动态范围
+     */
+    public static final double MIN_DBFS = -96;
+
+    private static final double FULL_SCALE = 32768;
+
+    private final int mBytesPerSample;
+    /**
+     * 一个窗口的采样数（含所有声道）
+     */
+    private final int mWindowSamples;
+    private final double mAttackCoef;
+    private final double mReleaseCoef;
+
+    /**
+     * 当前窗口的累计值，只在采集线程中使用
+     */
+    private double mSumSquares;
+    private int mMaxAbs;
+    private int mSamples;
+    /**
+     * 上一次 process 末尾不足一个采样的字节，与下一次 process 的开头拼接
+     */
+    private final byte[] mPending;
+    private int mPendingLength;
+
+    private volatile double mPeak;
+    private volatile double mRms;
+
+    /**
+     * @param sampleRate    采样率
+     * @param channels      声道数
+     * @param sampleBits    采样位宽，8 或 16
+     * @param windowMillis  统计窗口，毫秒
+     * @param attackMillis  起音时间，毫秒，0 为不平滑
+     * @param releaseMillis 释音时间，毫秒，0 为不平滑
+     */
+    public LevelMeter(int sampleRate, int channels, int sampleBits,
+                      int windowMillis, int attackMillis, int releaseMillis) {
+        if (channels <= 0 || (sampleBits != 8 && sampleBits != 16)) {
+            throw new IllegalArgumentException("unsupported format: channels=" + channels + " bits=" + sampleBits);
+        }
+        mBytesPerSample = sampleBits / 8;
+        mPending = new byte[mBytesPerSample];
+        int windowFrames = Math.max(1, (int) ((long) sampleRate * windowMillis / 1000));
+        mWindowSamples = windowFrames * channels;
+        double window = Math.max(1, windowMillis);
+        mAttackCoef = smoothing(window, attackMillis);
+        mReleaseCoef = smoothing(window, releaseMillis);
+    }
+
+    /**
+     * 每个窗口向新值逼近的比例
+     */
+    private static double smoothing(double windowMillis, int timeMillis) {
+        return timeMillis > 0 ? 1 - Math.exp(-windowMillis / timeMillis) : 1;
+    }
+
+    /**
+     * 统计一块 PCM 数据（小端，多声道交错）
+     * <p>
+     * length 不必按采样对齐，末尾不足一个采样的字节保留到下一次 process
+     *
+     * @param data   数据
+     * @param offset 起始位置
+     * @param length 字节数
+     * @return 是否有窗口结束、结果已更新
+     */
+    public boolean process(byte[] data, int offset, int length) {
+        int end = offset + length;
+        boolean updated = false;
+        if (mPendingLength > 0) {
+            int count = Math.min(mBytesPerSample - mPendingLength, length);
+            System.arraycopy(data, offset, mPending, mPendingLength, count);
+            mPendingLength += count;
+            offset += count;
+            if (mPendingLength < mBytesPerSample) {
+                return false;
+            }
+            mPendingLength = 0;
+            updated = accumulate(mPending, 0, mBytesPerSample);
+        }
+        int aligned = offset + (end - offset) / mBytesPerSample * mBytesPerSample;
+        if (accumulate(data, offset, aligned)) {
+            updated = true;
+        }
+        mPendingLength = end - aligned;
+        System.arraycopy(data, aligned, mPending, 0, mPendingLength);
+        return updated;
+    }
+
+    /**
+     * 累加 [from, to) 中的整数个采样
+     */
+    private boolean accumulate(byte[] data, int from, int to) {
+        boolean updated = false;
+        double sumSquares = mSumSquares;
+        int maxAbs = mMaxAbs;
+        int samples = mSamples;
+        for (int p = from; p < to; p += mBytesPerSample) {
+            int sample;
+            if (mBytesPerSample == 2) {
+                sample = (short) ((data[p] & 0xff) | ((data[p + 1] & 0xff) << 8));
+            } else {
+                // 8bit pcm 为无符号，换算到16bit的幅度
+                sample = ((data[p] & 0xff) - 128) << 8;
+            }
+            sumSquares += (double) sample * sample;
+            int abs = sample < 0 ? -sample : sample;
+            if (abs > maxAbs) {
+                maxAbs = abs;
+            }
+            if (++samples == mWindowSamples) {
+                update(Math.min(1, maxAbs / FULL_SCALE), Math.sqrt(sumSquares / samples) / FULL_SCALE);
+                sumSquares = 0;
+                maxAbs = 0;
+                samples = 0;
+                updated = true;
+            }
+        }
+        mSumSquares = sumSquares;
+        mMaxAbs = maxAbs;
+        mSamples = samples;
+        return updated;
+    }
+
+    private void update(double peak, double rms) {
+        mPeak = smooth(mPeak, peak);
+        mRms = smooth(mRms, rms);
+    }
+
+    private double smooth(double current, double target) {
+        return current + (target - current) * (target > current ? mAttackCoef : mReleaseCoef);
+    }
+
+    /**
+     * 清空累计值与结果，例如暂停后继续
+     */
+    public void reset() {
+        mSumSquares = 0;
+        mMaxAbs = 0;
+        mSamples = 0;
+        mPendingLength = 0;
+        mPeak = 0;
+        mRms = 0;
+    }
+
+    /**
+     * @return 峰值，满幅为 1
+     */
+    public double getPeak() {
+        return mPeak;
+    }
+
+    /**
+     * @return 均方根，满幅正弦约为 0.707
+     */
+    public double getRms() {
+        return mRms;
+    }
+
+    public double getPeakDbfs() {
+        return toDbfs(mPeak);
+    }
+
+    public double getRmsDbfs() {
+        return toDbfs(mRms);
+    }
+
+    /**
+     * @return 均方根电平高于 {@link #MIN_DBFS} 的分贝数，0 ~ 96，用于 OnRecordSoundSizeListener
+     */
+    public int getSoundSize() {
+        return (int) Math.round(getRmsDbfs() - MIN_DBFS);
+    }
+
+    /**
+     * @param level 线性幅度，满幅为 1
+     */
+    public static double toDbfs(double level) {
+        if (level <= 0) {
+            return MIN_DBFS;
+        }
+        return Math.max(MIN_DBFS, 20 * Math.log10(level));
+    }
+}
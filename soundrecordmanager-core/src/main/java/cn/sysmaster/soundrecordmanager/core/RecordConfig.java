@@ -0,0 +1,487 @@
+package cn.sysmaster.soundrecordmanager.core;
+
+import java.util.concurrent.Executor;
+
+import cn.sysmaster.soundrecordmanager.fftlib.FftPrecision;
+import cn.sysmaster.soundrecordmanager.fftlib.WindowFunction;
+
+/**
+ * @author dabo
+ * @describe 录音配置参数（与平台无关的部分）
+ * <p>
+ * Android 端的 SoundRecordConfig 继承自本类；在 JVM / 服务端直接使用 {@link Builder} 创建。
+ */
+public class RecordConfig {
+
+    /**
+     * 录音文件存放路径
+     */
+    protected String mAudioRecordDir = "";
+
+    /**
+     * 录音时长，0为不限制时长,毫秒
+     */
+    protected long mRecordDuation = 0L;
+
+    /**
+     * 最小录音时长,毫秒
+     */
+    protected long mMinRecordDuation = 0L;
+
+    /**
+     * 录音格式，默认WAV
+     */
+    protected SoundRecordFormat mRecordFormat = SoundRecordFormat.WAV;
+
+    /**
+     * 采样率：音频的采样频率，每秒钟能够采样的次数，采样率越高，音质越高。
+     */
+    protected int mSampleRateInHz = 16000;
+
+    /**
+     * 声道数，默认单声道
+     */
+    protected int mChannelCount = 1;
+
+    /**
+     * 采样位宽 单位bit，主流16bit
+     */
+    protected int mEncoding = 16;
+
+    /**
+     * 可视化频谱的 FFT 帧长（采样点数），任意长度，不要求2的幂
+     */
+    protected int mFftFrameSize = 512;
+
+    /**
+     * 可视化频谱的帧移（采样点数），决定频谱回调频率：采样率 / 帧移
+     */
+    protected int mFftHopSize = 256;
+
+    /**
+     * 可视化频谱的窗函数
+     */
+    protected WindowFunction mFftWindow = WindowFunction.HANN;
+
+    /**
+     * 可视化频谱的计算精度，默认双精度
+     */
+    protected FftPrecision mFftPrecision = FftPrecision.DOUBLE;
+
+    /**
+     * 写文件缓冲区大小，字节，数据攒满后整块写入
+     */
+    protected int mWriteBufferSize = 64 * 1024;
+
+    /**
+     * 刷盘策略，默认只在停止时写入剩余数据
+     */
+    protected FlushPolicy mFlushPolicy = FlushPolicy.DEFAULT;
+
+    /**
+     * 音量、频谱、计时回调每秒最多投递次数，默认与屏幕刷新率一致；0 为不限制
+     */
+    protected int mDisplayRate = 60;
+
+    /**
+     * 音量统计窗口，毫秒
+     */
+    protected int mLevelWindowMillis = 50;
+
+    /**
+     * 音量平滑的起音、释音时间，毫秒，0 为不平滑
+     */
+    protected int mLevelAttackMillis = 0;
+    protected int mLevelReleaseMillis = 0;
+
+    /**
+     * 状态与错误回调 OnRecordStateListener 的执行器，null 时使用录音引擎的默认回调执行器
+     */
+    protected Executor mStateExecutor;
+
+    /**
+     * 录音文件回调 OnRecordResultListener 的执行器，null 时使用录音引擎的默认回调执行器
+     */
+    protected Executor mResultExecutor;
+
+    /**
+     * 音频数据回调 OnRecordDataListener 的执行器，null 时使用录音引擎的默认回调执行器
+     */
+    protected Executor mDataExecutor;
+
+    /**
+     * 音量回调 OnRecordSoundSizeListener 的执行器，null 时使用录音引擎的默认回调执行器
+     */
+    protected Executor mSoundSizeExecutor;
+
+    /**
+     * 可视化数据回调 OnRecordFftDataListener 的执行器，null 时使用录音引擎的默认回调执行器
+     */
+    protected Executor mFftDataExecutor;
+
+    /**
+     * 计时回调 OnRecordCountDownTimerListener 的执行器，null 时使用录音引擎的默认回调执行器
+     */
+    protected Executor mCountDownExecutor;
+
+    protected RecordConfig() {
+    }
+
+    /**
+     * 复制全部通用参数，新增参数时在这里补充复制
+     */
+    protected RecordConfig(RecordConfig other) {
+        this.mAudioRecordDir = other.mAudioRecordDir;
+        this.mRecordDuation = other.mRecordDuation;
+        this.mMinRecordDuation = other.mMinRecordDuation;
+        this.mRecordFormat = other.mRecordFormat;
+        this.mSampleRateInHz = other.mSampleRateInHz;
+        this.mChannelCount = other.mChannelCount;
+        this.mEncoding = other.mEncoding;
+        this.mFftFrameSize = other.mFftFrameSize;
+        this.mFftHopSize = other.mFftHopSize;
+        this.mFftWindow = other.mFftWindow;
+        this.mFftPrecision = other.mFftPrecision;
+        this.mWriteBufferSize = other.mWriteBufferSize;
+        this.mFlushPolicy = other.mFlushPolicy;
+        this.mDisplayRate = other.mDisplayRate;
+        this.mLevelWindowMillis = other.mLevelWindowMillis;
+        this.mLevelAttackMillis = other.mLevelAttackMillis;
+        this.mLevelReleaseMillis = other.mLevelReleaseMillis;
+        this.mStateExecutor = other.mStateExecutor;
+        this.mResultExecutor = other.mResultExecutor;
+        this.mDataExecutor = other.mDataExecutor;
+        this.mSoundSizeExecutor = other.mSoundSizeExecutor;
+        this.mFftDataExecutor = other.mFftDataExecutor;
+        this.mCountDownExecutor = other.mCountDownExecutor;
+    }
+
+    /**
+     * 录音格式
+     */
+    public enum SoundRecordFormat {
+        /**
+         * wav格式
+         */
+        WAV(".wav"),
+        /**
+         * pcm格式
+         */
+        PCM(".pcm");
+
+        private String extension;
+
+        public String getExtension() {
+            return extension;
+        }
+
+        SoundRecordFormat(String extension) {
+            this.extension = extension;
+        }
+    }
+
+    /**
+     * 参数直接写入内部的 RecordConfig，默认值即 RecordConfig 字段的初始值；
+     * Android 端的 SoundRecordConfig.AudioRecordConfigBuilder 也委托给本类，新增通用参数只需加在这里
+     */
+    public static final class Builder {
+        private final RecordConfig mConfig;
+
+        private Builder(RecordConfig config) {
+            this.mConfig = config;
+        }
+
+        /**
+         * @param audioRecordDir 录音文件存放路径，以分隔符结尾
+         */
+        public static Builder create(String audioRecordDir) {
+            return new Builder(new RecordConfig()).withAudioRecordDir(audioRecordDir);
+        }
+
+        /**
+         * @param audioRecordDir 录音文件存放路径，以分隔符结尾
+         */
+        public Builder withAudioRecordDir(String audioRecordDir) {
+            mConfig.mAudioRecordDir = audioRecordDir;
+            return this;
+        }
+
+        public Builder withMinRecordDuation(long minRecordDuation) {
+            mConfig.mMinRecordDuation = minRecordDuation;
+            return this;
+        }
+
+        public Builder withRecordDuation(long recordDuation) {
+            mConfig.mRecordDuation = recordDuation;
+            return this;
+        }
+
+        public Builder withRecordFormat(SoundRecordFormat recordFormat) {
+            mConfig.mRecordFormat = recordFormat;
+            return this;
+        }
+
+        public Builder withSampleRateInHz(int sampleRateInHz) {
+            mConfig.mSampleRateInHz = sampleRateInHz;
+            return this;
+        }
+
+        public Builder withChannelCount(int channelCount) {
+            mConfig.mChannelCount = channelCount;
+            return this;
+        }
+
+        public Builder withEncoding(int encoding) {
+            mConfig.mEncoding = encoding;
+            return this;
+        }
+
+        public Builder withFftFrameSize(int fftFrameSize) {
+            mConfig.mFftFrameSize = fftFrameSize;
+            return this;
+        }
+
+        public Builder withFftHopSize(int fftHopSize) {
+            mConfig.mFftHopSize = fftHopSize;
+            return this;
+        }
+
+        public Builder withFftWindow(WindowFunction fftWindow) {
+            mConfig.mFftWindow = fftWindow;
+            return this;
+        }
+
+        public Builder withFftPrecision(FftPrecision fftPrecision) {
+            mConfig.mFftPrecision = fftPrecision;
+            return this;
+        }
+
+        /**
+         * @param writeBufferSize 写文件缓冲区大小，建议 64KB ~ 1MB
+         */
+        public Builder withWriteBufferSize(int writeBufferSize) {
+            mConfig.mWriteBufferSize = writeBufferSize;
+            return this;
+        }
+
+        public Builder withFlushPolicy(FlushPolicy flushPolicy) {
+            mConfig.mFlushPolicy = flushPolicy;
+            return this;
+        }
+
+        /**
+         * @param displayRate 音量、频谱、计时回调每秒最多投递次数，0 为不限制
+         */
+        public Builder withDisplayRate(int displayRate) {
+            mConfig.mDisplayRate = displayRate;
+            return this;
+        }
+
+        /**
+         * @param levelWindowMillis 音量统计窗口，毫秒，每个窗口计算一次峰值与均方根
+         */
+        public Builder withLevelWindow(int levelWindowMillis) {
+            mConfig.mLevelWindowMillis = levelWindowMillis;
+            return this;
+        }
+
+        /**
+         * @param attackMillis  音量上升的平滑时间，毫秒，0 为不平滑
+         * @param releaseMillis 音量下降的平滑时间，毫秒，0 为不平滑
+         */
+        public Builder withLevelSmoothing(int attackMillis, int releaseMillis) {
+            mConfig.mLevelAttackMillis = attackMillis;
+            mConfig.mLevelReleaseMillis = releaseMillis;
+            return this;
+        }
+
+        /**
+         * @param stateExecutor 状态与错误回调 OnRecordStateListener 的执行器
+         */
+        public Builder withStateExecutor(Executor stateExecutor) {
+            mConfig.mStateExecutor = stateExecutor;
+            return this;
+        }
+
+        /**
+         * @param resultExecutor 录音文件回调 OnRecordResultListener 的执行器
+         */
+        public Builder withResultExecutor(Executor resultExecutor) {
+            mConfig.mResultExecutor = resultExecutor;
+            return this;
+        }
+
+        /**
+         * @param dataExecutor 音频数据回调 OnRecordDataListener 的执行器
+         * <p>
+         * 传入 {@link SoundRecorder#DIRECT_EXECUTOR} 时在采集线程中直接回调，不复制、不切换线程，
+         * 回调中不得执行耗时操作，否则会阻塞采集
+         */
+        public Builder withDataExecutor(Executor dataExecutor) {
+            mConfig.mDataExecutor = dataExecutor;
+            return this;
+        }
+
+        /**
+         * @param soundSizeExecutor 音量回调 OnRecordSoundSizeListener 的执行器
+         */
+        public Builder withSoundSizeExecutor(Executor soundSizeExecutor) {
+            mConfig.mSoundSizeExecutor = soundSizeExecutor;
+            return this;
+        }
+
+        /**
+         * @param fftDataExecutor 可视化数据回调 OnRecordFftDataListener 的执行器
+         */
+        public Builder withFftDataExecutor(Executor fftDataExecutor) {
+            mConfig.mFftDataExecutor = fftDataExecutor;
+            return this;
+        }
+
+        /**
+         * @param countDownExecutor 计时回调 OnRecordCountDownTimerListener 的执行器
+         */
+        public Builder withCountDownExecutor(Executor countDownExecutor) {
+            mConfig.mCountDownExecutor = countDownExecutor;
+            return this;
+        }
+
+        /**
+         * @throws IllegalArgumentException 声道数、采样位宽、FFT 帧长或帧移不支持
+         */
+        public RecordConfig build() {
+            RecordConfig config = new RecordConfig(mConfig);
+            config.checkArguments();
+            return config;
+        }
+
+        /**
+         * @return 参数相同的新 Builder，之后的修改互不影响
+         */
+        public Builder but() {
+            return new Builder(new RecordConfig(mConfig));
+        }
+    }
+
+    /**
+     * 检查参数，不支持的参数在创建配置时抛出，不留到开始录音时
+     *
+     * @throws IllegalArgumentException 参数不支持
+     */
+    protected void checkArguments() {
+        if (mChannelCount <= 0) {
+            throw new IllegalArgumentException("unsupported channel count: " + mChannelCount);
+        }
+        if (mEncoding != 8 && mEncoding != 16) {
+            throw new IllegalArgumentException("unsupported encoding: " + mEncoding);
+        }
+        if (mFftFrameSize <= 0) {
+            throw new IllegalArgumentException("fftFrameSize must be positive");
+        }
+        if (mFftHopSize <= 0) {
+            throw new IllegalArgumentException("fftHopSize must be positive");
+        }
+    }
+
+    public long getRecordDuation() {
+        return mRecordDuation;
+    }
+
+    public String getAudioRecordDir() {
+        return mAudioRecordDir;
+    }
+
+    public SoundRecordFormat getRecordFormat() {
+        return mRecordFormat;
+    }
+
+    public int getSampleRateInHz() {
+        return mSampleRateInHz;
+    }
+
+    public long getMinRecordDuation() {
+        return mMinRecordDuation;
+    }
+
+    /**
+     * 当前的声道数
+     *
+     * @return 声道数： 0：error
+     */
+    public int getChannelCount() {
+        return mChannelCount;
+    }
+
+    /**
+     * 获取当前录音的采样位宽 单位bit
+     *
+     * @return 采样位宽 0: error
+     */
+    public int getEncoding() {
+        return mEncoding;
+    }
+
+    public int getFftFrameSize() {
+        return mFftFrameSize;
+    }
+
+    public int getFftHopSize() {
+        return mFftHopSize;
+    }
+
+    public WindowFunction getFftWindow() {
+        return mFftWindow;
+    }
+
+    public FftPrecision getFftPrecision() {
+        return mFftPrecision;
+    }
+
+    public int getWriteBufferSize() {
+        return mWriteBufferSize;
+    }
+
+    public FlushPolicy getFlushPolicy() {
+        return mFlushPolicy;
+    }
+
+    public int getDisplayRate() {
+        return mDisplayRate;
+    }
+
+    public int getLevelWindowMillis() {
+        return mLevelWindowMillis;
+    }
+
+    public int getLevelAttackMillis() {
+        return mLevelAttackMillis;
+    }
+
+    public int getLevelReleaseMillis() {
+        return mLevelReleaseMillis;
+    }
+
+    public Executor getStateExecutor() {
+        return mStateExecutor;
+    }
+
+    public Executor getResultExecutor() {
+        return mResultExecutor;
+    }
+
+    public Executor getDataExecutor() {
+        return mDataExecutor;
+    }
+
+    public Executor getSoundSizeExecutor() {
+        return mSoundSizeExecutor;
+    }
+
+    public Executor getFftDataExecutor() {
+        return mFftDataExecutor;
+    }
+
+    public Executor getCountDownExecutor() {
+        return mCountDownExecutor;
+    }
+}
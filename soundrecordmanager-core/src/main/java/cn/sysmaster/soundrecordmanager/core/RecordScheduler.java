@@ -0,0 +1,93 @@
+package cn.sysmaster.soundrecordmanager.core;
+
+import java.util.concurrent.Executor;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledThreadPoolExecutor;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * @author dabo
+ * @describe 录音引擎共享的定时线程与收尾队列
+ * <p>
+ * 所有录音实例共用一个定时守护线程，只执行延迟投递等轻量任务，不得在其中执行耗时操作；
+ * 文件收尾（回填文件头、关闭文件）在单独的收尾队列中按提交顺序执行。
+ */
+public final class RecordScheduler {
+
+    /**
+     * 收尾线程空闲后的存活时间
+     */
+    private static final long FINALIZER_KEEP_ALIVE_SECONDS = 10;
+
+    /**
+     * 清理已取消定时任务的间隔
+     */
+    private static final long PURGE_INTERVAL_SECONDS = 10;
+
+    private static volatile ScheduledExecutorService sScheduler;
+    private static volatile Executor sFinalizer;
+
+    private RecordScheduler() {
+    }
+
+    public static ScheduledExecutorService get() {
+        ScheduledExecutorService scheduler = sScheduler;
+        if (scheduler == null) {
+            synchronized (RecordScheduler.class) {
+                scheduler = sScheduler;
+                if (scheduler == null) {
+                    final ScheduledThreadPoolExecutor executor = new ScheduledThreadPoolExecutor(1, new ThreadFactory() {
+                        @Override
+                        public Thread newThread(Runnable r) {
+                            Thread thread = new Thread(r, "SoundRecord-Scheduler");
+                            thread.setDaemon(true);
+                            return thread;
+                        }
+                    });
+                    // 定期把已取消的任务移出队列，避免频繁暂停计时时堆积；
+                    // setRemoveOnCancelPolicy 在 Android API 21 才提供，不能使用
+                    executor.scheduleWithFixedDelay(new Runnable() {
+                        @Override
+                        public void run() {
+                            executor.purge();
+                        }
+                    }, PURGE_INTERVAL_SECONDS, PURGE_INTERVAL_SECONDS, TimeUnit.SECONDS);
+                    scheduler = executor;
+                    sScheduler = scheduler;
+                }
+            }
+        }
+        return scheduler;
+    }
+
+    /**
+     * 文件收尾队列，单线程按顺序执行
+     * <p>
+     * 非守护线程，保证进程退出前已提交的文件完成收尾；空闲一段时间后线程退出，不阻止进程结束。
+     */
+    public static Executor finalizer() {
+        Executor finalizer = sFinalizer;
+        if (finalizer == null) {
+            synchronized (RecordScheduler.class) {
+                finalizer = sFinalizer;
+                if (finalizer == null) {
+                    ThreadPoolExecutor executor = new ThreadPoolExecutor(1, 1,
+                            FINALIZER_KEEP_ALIVE_SECONDS, TimeUnit.SECONDS,
+                            new LinkedBlockingQueue<Runnable>(), new ThreadFactory() {
+                        @Override
+                        public Thread newThread(Runnable r) {
+                            return new Thread(r, "SoundRecord-Finalize");
+                        }
+                    });
+                    executor.allowCoreThreadTimeOut(true);
+                    finalizer = executor;
+                    sFinalizer = finalizer;
+                }
+            }
+        }
+        return finalizer;
+    }
+}
@@ -0,0 +1,132 @@
+package cn.sysmaster.soundrecordmanager.core;
+
+import java.util.concurrent.atomic.AtomicInteger;
+
+import cn.sysmaster.soundrecordmanager.SoundRecordState;
+
+/**
+ * @author dabo
+ * @describe 录音状态机，所有状态切换都是一次 compareAndSet，无锁
+ * <ul>
+ * <li>IDLE → PREPARING：prepare / start</li>
+ * <li>PREPARING → PREPARED：prepare 完成；PREPARING → RECORDING：start 完成；PREPARING → IDLE：准备失败</li>
+ * <li>PREPARED → RECORDING：start</li>
+ * <li>RECORDING ⇄ PAUSE：pause / resume</li>
+ * <li>RECORDING / PAUSE → STOP：stop；RECORDING → STOP：数据源结束</li>
+ * <li>PREPARING / PREPARED → CANCELLED：开始前 stop</li>
+ * <li>STOP / CANCELLED → IDLE：采集线程结束；录音失败时采集线程从任意状态回到 IDLE</li>
+ * </ul>
+ * 每个状态只有一个出口由单一角色负责：PREPARING 由调用 prepare / start 的线程离开（stop 可抢先切到 CANCELLED），
+ * STOP 与 CANCELLED 只由采集线程切回 IDLE，因此同一时刻最多只有一次录音、一个采集线程。
+ * 并发调用同一操作时只有一个 CAS 成功，其余调用直接返回，操作是幂等的。
+ * <p>
+ * 状态值的高位是录音序号，每次 IDLE → PREPARING 加一。准备与 stop 按快照切换：先取快照再读取本次录音的字段，
+ * 之后按快照 CAS 成功就说明期间没有换成下一次录音（避免 ABA，例如准备中被取消的录音已结束、下一次录音正在准备）。
+ */
+final class RecordStateMachine {
+
+    static final int IDLE = SoundRecordState.IDLE;
+    static final int RECORDING = SoundRecordState.RECORDING;
+    static final int PAUSE = SoundRecordState.PAUSE;
+    static final int STOP = SoundRecordState.STOP;
+    /**
+     * 正在准备（创建文件、缓冲区、采集线程），对外表现为 IDLE
+     */
+    static final int PREPARING = 5;
+    /**
+     * 已准备，等待 start，对外表现为 IDLE
+     */
+    static final int PREPARED = 6;
+    /**
+     * 开始前已停止，采集线程删除结果文件后回到 IDLE，对外表现为 IDLE
+     */
+    static final int CANCELLED = 7;
+
+    /**
+     * {@link #begin()}、{@link #advance(int, int)} 切换失败
+     */
+    static final int FAILED = -1;
+
+    private static final int STATE_BITS = 3;
+    private static final int STATE_MASK = (1 << STATE_BITS) - 1;
+    /**
+     * 录音序号循环使用，快照始终非负
+     */
+    private static final int SESSION_MASK = Integer.MAX_VALUE >>> STATE_BITS;
+
+    /**
+     * 录音序号 << STATE_BITS | 状态
+     */
+    private final AtomicInteger mValue = new AtomicInteger(IDLE);
+
+    /**
+     * @return 当前状态
+     */
+    int state() {
+        return mValue.get() & STATE_MASK;
+    }
+
+    /**
+     * @return 含录音序号的快照，用于 {@link #advance(int, int)}
+     */
+    int snapshot() {
+        return mValue.get();
+    }
+
+    static int stateOf(int snapshot) {
+        return snapshot & STATE_MASK;
+    }
+
+    /**
+     * IDLE → PREPARING，开始新的一次录音
+     *
+     * @return 切换后的快照，未切换时为 {@link #FAILED}
+     */
+    int begin() {
+        int value = mValue.get();
+        if (stateOf(value) != IDLE) {
+            return FAILED;
+        }
+        int session = ((value >>> STATE_BITS) + 1) & SESSION_MASK;
+        int next = session << STATE_BITS | PREPARING;
+        return mValue.compareAndSet(value, next) ? next : FAILED;
+    }
+
+    /**
+     * 当前录音内的切换，不关心是第几次录音（pause / resume，或采集线程在自己的录音内）
+     *
+     * @return 是否由本次调用完成切换
+     */
+    boolean transition(int from, int to) {
+        int value = mValue.get();
+        return stateOf(value) == from && mValue.compareAndSet(value, (value & ~STATE_MASK) | to);
+    }
+
+    /**
+     * 从快照切换，快照之后状态或录音序号变化时失败
+     *
+     * @return 切换后的快照，未切换时为 {@link #FAILED}
+     */
+    int advance(int snapshot, int to) {
+        int next = (snapshot & ~STATE_MASK) | to;
+        return mValue.compareAndSet(snapshot, next) ? next : FAILED;
+    }
+
+    /**
+     * 录音结束，只由采集线程在 STOP、CANCELLED 或失败后调用，准备失败时由准备的线程调用
+     */
+    void finish() {
+        int value;
+        do {
+            value = mValue.get();
+        } while (!mValue.compareAndSet(value, value & ~STATE_MASK | IDLE));
+    }
+
+    /**
+     * @return {@link SoundRecordState} 中的对外状态
+     */
+    int getPublicState() {
+        int state = state();
+        return state >= PREPARING ? IDLE : state;
+    }
+}
@@ -0,0 +1,338 @@
+package cn.sysmaster.soundrecordmanager.core;
+
+import java.util.Locale;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * @author dabo
+ * @describe 录音流程吞吐统计
+ * <p>
+ * 由采集线程写入，其它线程只读。墙钟时间只统计采集循环运行的时间，不含暂停。
+ * 实时倍率 = 音频时长 / 处理耗时，麦克风数据源约为 1，文件或合成数据源不限速时即为流程的最大处理能力。
+ * <p>
+ * 环形队列占用与丢帧数反映写文件线程是否跟得上采集，丢帧数持续增长说明存储过慢。
+ */
+public class RecordStats {
+
+    private volatile int mBytesPerSecond;
+    private volatile long mCapturedBytes;
+    private volatile long mWallNanos;
+    private volatile long mSegmentStartNanos = -1;
+
+    private volatile FrameRingBuffer mRing;
+    private volatile int mMaxRingOccupancy;
+    private volatile long mOverrunFrames;
+    /**
+     * 采集线程与分析线程都会写入
+     */
+    private final AtomicLong mAnalysisDroppedFrames = new AtomicLong();
+    private volatile long mPoolExhaustedFrames;
+    /**
+     * start() 调用时刻，-1 表示已读到第一块数据
+     */
+    private volatile long mStartRequestNanos = -1;
+    private volatile long mTimeToFirstSampleNanos = -1;
+    /**
+     * 成功切回录制的 resume() 的调用时刻，-1 表示没有等待中的继续；
+     * resume 线程写入，采集线程在继续的一段开始时取走，或确认没有开始新一段时清除
+     */
+    private final AtomicLong mResumeRequestNanos = new AtomicLong(-1);
+    private volatile long mResumeLatencyNanos = -1;
+    private volatile long mMaxResumeLatencyNanos = -1;
+    private volatile int mWriteCalls;
+    private volatile int mForceCalls;
+
+    /**
+     * 新的录音开始，清空统计
+     *
+     * @param bytesPerSecond 每秒字节数：采样率 × 声道数 × 位宽 / 8
+     */
+    void reset(int bytesPerSecond) {
+        mBytesPerSecond = bytesPerSecond;
+        mCapturedBytes = 0;
+        mWallNanos = 0;
+        mSegmentStartNanos = -1;
+        mMaxRingOccupancy = 0;
+        mOverrunFrames = 0;
+        mAnalysisDroppedFrames.set(0);
+        mPoolExhaustedFrames = 0;
+        mStartRequestNanos = -1;
+        mTimeToFirstSampleNanos = -1;
+        mResumeRequestNanos.set(-1);
+        mResumeLatencyNanos = -1;
+        mMaxResumeLatencyNanos = -1;
+        mWriteCalls = 0;
+        mForceCalls = 0;
+    }
+
+    void attachRing(FrameRingBuffer ring) {
+        mRing = ring;
+    }
+
+    /**
+     * 采集循环开始（开始或继续录音）
+     */
+    void onSegmentStart() {
+        mSegmentStartNanos = System.nanoTime();
+    }
+
+    /**
+     * 采集循环结束（暂停或停止）
+     */
+    void onSegmentEnd() {
+        if (mSegmentStartNanos >= 0) {
+            mWallNanos += System.nanoTime() - mSegmentStartNanos;
+            mSegmentStartNanos = -1;
+        }
+    }
+
+    /**
+     * 调用 start()
+     *
+     * @param requestNanos 进入 start() 的时刻，未预先准备时包含准备耗时
+     */
+    void onStartRequested(long requestNanos) {
+        mStartRequestNanos = requestNanos;
+    }
+
+    /**
+     * resume() 已切回录制
+     *
+     * @param requestNanos 进入 resume() 的时刻
+     */
+    void onResumed(long requestNanos) {
+        mResumeRequestNanos.set(requestNanos);
+    }
+
+    /**
+     * 暂停后继续的一段开始，取走等待中的继续时刻
+     *
+     * @return resume() 的调用时刻，传给 {@link #onFirstSample(long)}；没有时为 -1
+     */
+    long takeResume() {
+        return mResumeRequestNanos.getAndSet(-1);
+    }
+
+    /**
+     * @return 当前等待中的继续时刻，采集线程在读取状态前取得，用于 {@link #discardResume(long)}
+     */
+    long getResumeMark() {
+        return mResumeRequestNanos.get();
+    }
+
+    /**
+     * 采集循环因暂停或停止结束：读取状态前已记录的继续没有开始新的一段（暂停后、采集线程发现前又继续），
+     * 清除以免下一段按它计算延迟；读取状态之后才记录的继续保留给下一段
+     *
+     * @param mark 最后一次读取状态前的 {@link #getResumeMark()}
+     */
+    void discardResume(long mark) {
+        if (mark >= 0) {
+            mResumeRequestNanos.compareAndSet(mark, -1);
+        }
+    }
+
+    /**
+     * 一段采集读到第一块数据
+     *
+     * @param resumeRequestNanos 本段开始时 {@link #takeResume()} 取得的时刻，不是继续的一段时为 -1
+     */
+    void onFirstSample(long resumeRequestNanos) {
+        long startRequested = mStartRequestNanos;
+        if (startRequested >= 0) {
+            mTimeToFirstSampleNanos = System.nanoTime() - startRequested;
+            mStartRequestNanos = -1;
+        }
+        if (resumeRequestNanos >= 0) {
+            long latency = System.nanoTime() - resumeRequestNanos;
+            mResumeLatencyNanos = latency;
+            if (latency > mMaxResumeLatencyNanos) {
+                mMaxResumeLatencyNanos = latency;
+            }
+        }
+    }
+
+    void onCaptured(int bytes) {
+        mCapturedBytes += bytes;
+    }
+
+    /**
+     * 采集线程提交一帧后记录队列占用峰值
+     */
+    void onFramePublished() {
+        FrameRingBuffer ring = mRing;
+        if (ring != null) {
+            int size = ring.size();
+            if (size > mMaxRingOccupancy) {
+                mMaxRingOccupancy = size;
+            }
+        }
+    }
+
+    /**
+     * 分析线程跟不上，丢弃了过期的帧
+     */
+    void onAnalysisDropped(int frames) {
+        mAnalysisDroppedFrames.addAndGet(frames);
+    }
+
+    /**
+     * 帧池已空，本帧未分发给回调与分析线程
+     */
+    void onPoolExhausted() {
+        mPoolExhaustedFrames++;
+    }
+
+    /**
+     * 录音文件关闭
+     */
+    void onWriterClosed(int writeCalls, int forceCalls) {
+        mWriteCalls = writeCalls;
+        mForceCalls = forceCalls;
+    }
+
+    /**
+     * 队列已满，本帧未写入文件
+     */
+    void onOverrun() {
+        mOverrunFrames++;
+    }
+
+    /**
+     * @return 已采集字节数
+     */
+    public long getCapturedBytes() {
+        return mCapturedBytes;
+    }
+
+    /**
+     * @return 已采集的音频时长，毫秒
+     */
+    public long getAudioDurationMs() {
+        int bytesPerSecond = mBytesPerSecond;
+        return bytesPerSecond > 0 ? mCapturedBytes * 1000L / bytesPerSecond : 0;
+    }
+
+    /**
+     * @return 采集循环运行的墙钟时间，毫秒
+     */
+    public long getWallTimeMs() {
+        long nanos = mWallNanos;
+        long start = mSegmentStartNanos;
+        if (start >= 0) {
+            nanos += System.nanoTime() - start;
+        }
+        return nanos / 1000000L;
+    }
+
+    /**
+     * @return 实时倍率，音频时长 / 墙钟时间；尚无数据时为0
+     */
+    public double getRealtimeFactor() {
+        int bytesPerSecond = mBytesPerSecond;
+        long nanos = mWallNanos;
+        long start = mSegmentStartNanos;
+        if (start >= 0) {
+            nanos += System.nanoTime() - start;
+        }
+        if (bytesPerSecond <= 0 || nanos <= 0) {
+            return 0;
+        }
+        return mCapturedBytes * 1e9 / bytesPerSecond / nanos;
+    }
+
+    /**
+     * @return 环形队列当前占用帧数
+     */
+    public int getRingOccupancy() {
+        FrameRingBuffer ring = mRing;
+        return ring != null ? ring.size() : 0;
+    }
+
+    /**
+     * @return 本次录音中环形队列占用的峰值
+     */
+    public int getMaxRingOccupancy() {
+        return mMaxRingOccupancy;
+    }
+
+    /**
+     * @return 环形队列容量，帧数
+     */
+    public int getRingCapacity() {
+        FrameRingBuffer ring = mRing;
+        return ring != null ? ring.getCapacity() : 0;
+    }
+
+    /**
+     * @return 因队列满而未写入文件的帧数
+     */
+    public long getOverrunFrames() {
+        return mOverrunFrames;
+    }
+
+    /**
+     * @return 频谱分析跟不上时丢弃的帧数，不影响录音文件
+     */
+    public long getAnalysisDroppedFrames() {
+        return mAnalysisDroppedFrames.get();
+    }
+
+    /**
+     * @return 从 start() 到读到第一块数据的耗时，微秒；尚未读到时为 -1
+     */
+    public long getTimeToFirstSampleMicros() {
+        long latency = mTimeToFirstSampleNanos;
+        return latency < 0 ? -1 : latency / 1000;
+    }
+
+    /**
+     * @return 最近一次从 resume() 到读到第一块数据的耗时，微秒；没有继续过时为 -1
+     */
+    public long getResumeLatencyMicros() {
+        long latency = mResumeLatencyNanos;
+        return latency < 0 ? -1 : latency / 1000;
+    }
+
+    /**
+     * @return 本次录音中继续耗时的最大值，微秒；没有继续过时为 -1
+     */
+    public long getMaxResumeLatencyMicros() {
+        long latency = mMaxResumeLatencyNanos;
+        return latency < 0 ? -1 : latency / 1000;
+    }
+
+    /**
+     * @return 帧池已空、未分发给回调与分析线程的帧数，持续增长说明回调线程积压
+     */
+    public long getPoolExhaustedFrames() {
+        return mPoolExhaustedFrames;
+    }
+
+    /**
+     * @return 写文件的系统调用次数，录音文件关闭后有效
+     */
+    public int getWriteCalls() {
+        return mWriteCalls;
+    }
+
+    /**
+     * @return FileChannel.force 次数，录音文件关闭后有效
+     */
+    public int getForceCalls() {
+        return mForceCalls;
+    }
+
+    @Override
+    public String toString() {
+        return "RecordStats{audio=" + getAudioDurationMs() + "ms, wall=" + getWallTimeMs()
+                + "ms, realtimeFactor=" + String.format(Locale.US, "%.2f", getRealtimeFactor())
+                + ", ring=" + getMaxRingOccupancy() + "/" + getRingCapacity()
+                + ", overrun=" + getOverrunFrames()
+                + ", analysisDropped=" + getAnalysisDroppedFrames()
+                + ", poolExhausted=" + getPoolExhaustedFrames()
+                + ", firstSample=" + getTimeToFirstSampleMicros() + "us"
+                + ", resumeLatency=" + getResumeLatencyMicros() + "/" + getMaxResumeLatencyMicros() + "us"
+                + ", writes=" + getWriteCalls() + ", forces=" + getForceCalls() + "}";
+    }
+}
@@ -0,0 +1,235 @@
+package cn.sysmaster.soundrecordmanager.core;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+
+import cn.sysmaster.soundrecordmanager.utils.WavUtils;
+
+/**
+ * @author dabo
+ * @describe 批量写入录音文件
+ * <p>
+ * 小块数据先复制到固定大小的直接缓冲区，写满后整块写入 FileChannel，把每帧一次的系统调用合并为每缓冲区一次；
+ * 缓冲区未满时按 {@link FlushPolicy} 提前写入。
+ * <p>
+ * WAV 模式下打开文件时先预留 44 字节文件头，音频数据直接追加到结果文件，
+ * 每次按策略写入和关闭时在文件开头回填 RIFF / data 长度，停止录音不再需要合并或复制文件，
+ * 按策略写入过的文件在异常退出后仍是可播放的 WAV。
+ * <p>
+ * 非线程安全，同一时刻只能由一个线程使用。
+ */
+public class RecordingWriter {
+
+    /**
+     * 缓冲区大小下限与上限
+     */
+    public static final int MIN_BUFFER_SIZE = 4 * 1024;
+    public static final int MAX_BUFFER_SIZE = 4 * 1024 * 1024;
+
+    private final FileOutputStream mOutputStream;
+    private final FileChannel mChannel;
+    private final ByteBuffer mBuffer;
+    private final FlushPolicy mPolicy;
+
+    /**
+     * WAV 格式参数，非 WAV 模式时 mWav 为 false
+     */
+    private final boolean mWav;
+    private final int mSampleRate;
+    private final int mChannelCount;
+    private final int mSampleBits;
+    /**
+     * 已写入的音频数据字节数（含缓冲区中的数据），不含文件头
+     */
+    private long mDataBytes;
+
+    /**
+     * 上次写入后累计的字节数与时间，用于刷盘策略
+     */
+    private long mPendingBytes;
+    private long mLastFlushNanos;
+
+    private long mWrittenBytes;
+    private int mWriteCalls;
+    private int mForceCalls;
+
+    /**
+     * @param file       输出文件，已存在时覆盖
+     * @param bufferSize 缓冲区大小，字节，按 4KB 对齐
+     * @param policy     刷盘策略
+     * @throws IOException 文件无法打开
+     */
+    public RecordingWriter(File file, int bufferSize, FlushPolicy policy) throws IOException {
+        this(file, bufferSize, policy, false, 0, 0, 0);
+    }
+
+    /**
+     * 创建 WAV 文件写入器，预留文件头，关闭时回填长度
+     *
+     * @param file         输出文件，已存在时覆盖
+     * @param sampleRate   采样率
+     * @param channelCount 声道数
+     * @param sampleBits   采样位宽
+     * @param bufferSize   缓冲区大小，字节
+     * @param policy       刷盘策略
+     * @throws IOException 文件无法打开
+     */
+    public static RecordingWriter wav(File file, int sampleRate, int channelCount, int sampleBits,
+                                      int bufferSize, FlushPolicy policy) throws IOException {
+        return new RecordingWriter(file, bufferSize, policy, true, sampleRate, channelCount, sampleBits);
+    }
+
+    private RecordingWriter(File file, int bufferSize, FlushPolicy policy,
+                            boolean wav, int sampleRate, int channelCount, int sampleBits) throws IOException {
+        this.mWav = wav;
+        this.mSampleRate = sampleRate;
+        this.mChannelCount = channelCount;
+        this.mSampleBits = sampleBits;
+        int size = Math.max(MIN_BUFFER_SIZE, Math.min(MAX_BUFFER_SIZE, bufferSize));
+        size -= size % MIN_BUFFER_SIZE;
+        this.mBuffer = ByteBuffer.allocateDirect(size);
+        this.mPolicy = policy != null ? policy : FlushPolicy.DEFAULT;
+        this.mOutputStream = new FileOutputStream(file);
+        this.mChannel = mOutputStream.getChannel();
+        this.mLastFlushNanos = System.nanoTime();
+        if (mWav) {
+            // 先占位，和音频数据一起整块写入
+            mBuffer.put(header());
+        }
+    }
+
+    /**
+     * 写入数据，缓冲区满时整块写入文件
+     */
+    public void write(byte[] data, int offset, int length) throws IOException {
+        mPendingBytes += length;
+        mDataBytes += length;
+        while (length > 0) {
+            int count = Math.min(length, mBuffer.remaining());
+            mBuffer.put(data, offset, count);
+            offset += count;
+            length -= count;
+            if (!mBuffer.hasRemaining()) {
+                drain();
+            }
+        }
+        checkPolicy();
+    }
+
+    /**
+     * 没有新数据时调用，让按时间间隔的策略也能生效
+     */
+    public void onIdle() throws IOException {
+        checkPolicy();
+    }
+
+    /**
+     * 立即写入缓冲区中的数据，按策略同步到存储设备
+     */
+    public void flush() throws IOException {
+        drain();
+        patchHeader();
+        if (mPolicy.isForce()) {
+            mChannel.force(false);
+            mForceCalls++;
+        }
+        mPendingBytes = 0;
+        mLastFlushNanos = System.nanoTime();
+    }
+
+    /**
+     * 写入剩余数据并关闭文件
+     */
+    public void close() throws IOException {
+        try {
+            flush();
+        } finally {
+            mOutputStream.close();
+        }
+    }
+
+    /**
+     * @return 已接收的音频数据字节数，不含文件头
+     */
+    public long getDataBytes() {
+        return mDataBytes;
+    }
+
+    public boolean isWav() {
+        return mWav;
+    }
+
+    /**
+     * @return 已写入文件的字节数，含文件头，不含缓冲区中的数据
+     */
+    public long getWrittenBytes() {
+        return mWrittenBytes;
+    }
+
+    /**
+     * @return FileChannel.write 调用次数
+     */
+    public int getWriteCalls() {
+        return mWriteCalls;
+    }
+
+    /**
+     * @return FileChannel.force 调用次数
+     */
+    public int getForceCalls() {
+        return mForceCalls;
+    }
+
+    private void checkPolicy() throws IOException {
+        switch (mPolicy.getTrigger()) {
+            case INTERVAL:
+                if (System.nanoTime() - mLastFlushNanos >= mPolicy.getThreshold() * 1000000L) {
+                    flush();
+                }
+                break;
+            case BYTES:
+                if (mPendingBytes >= mPolicy.getThreshold()) {
+                    flush();
+                }
+                break;
+            default:
+                break;
+        }
+    }
+
+    /**
+     * 在文件开头回填当前长度，使用定位写入，不影响追加位置
+     */
+    private void patchHeader() throws IOException {
+        if (!mWav) {
+            return;
+        }
+        ByteBuffer header = ByteBuffer.wrap(header());
+        long position = 0;
+        while (header.hasRemaining()) {
+            position += mChannel.write(header, position);
+            mWriteCalls++;
+        }
+    }
+
+    private byte[] header() {
+        // WAV 长度字段为32位，超出时按上限填写
+        long total = Math.min(mDataBytes + WavUtils.HEADER_SIZE, 0xffffffffL);
+        return WavUtils.generateWavFileHeader((int) total, mSampleRate, mChannelCount, mSampleBits);
+    }
+
+    private void drain() throws IOException {
+        if (mBuffer.position() == 0) {
+            return;
+        }
+        mBuffer.flip();
+        while (mBuffer.hasRemaining()) {
+            mWrittenBytes += mChannel.write(mBuffer);
+            mWriteCalls++;
+        }
+        mBuffer.clear();
+    }
+}
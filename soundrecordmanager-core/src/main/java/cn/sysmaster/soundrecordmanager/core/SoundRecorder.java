@@ -0,0 +1,1051 @@
+package cn.sysmaster.soundrecordmanager.core;
+
+import java.io.File;
+import java.io.IOException;
+import java.text.SimpleDateFormat;
+import java.util.Arrays;
+import java.util.Date;
+import java.util.Locale;
+import java.util.concurrent.Callable;
+import java.util.concurrent.Executor;
+import java.util.concurrent.Future;
+import java.util.concurrent.FutureTask;
+import java.util.concurrent.locks.LockSupport;
+
+import cn.sysmaster.soundrecordmanager.SoundRecordState;
+import cn.sysmaster.soundrecordmanager.fftlib.StftProcessor;
+import cn.sysmaster.soundrecordmanager.listener.OnRecordCountDownTimerListener;
+import cn.sysmaster.soundrecordmanager.listener.OnRecordDataListener;
+import cn.sysmaster.soundrecordmanager.listener.OnRecordDataRangeListener;
+import cn.sysmaster.soundrecordmanager.listener.OnRecordFftDataListener;
+import cn.sysmaster.soundrecordmanager.listener.OnRecordResultListener;
+import cn.sysmaster.soundrecordmanager.listener.OnRecordSoundSizeListener;
+import cn.sysmaster.soundrecordmanager.listener.OnRecordStateListener;
+import cn.sysmaster.soundrecordmanager.source.AudioSource;
+
+/**
+ * @author dabo
+ * @describe 录音引擎：采集线程、状态机、文件写入与频谱分析，不依赖 Android
+ * <p>
+ * 数据来自 {@link AudioSource}，回调通过构造时传入的 {@link Executor} 分发，
+ * Android 端传入主线程 Executor，JVM 端可直接在工作线程回调；
+ * 每类回调也可在 {@link RecordConfig} 中单独指定执行器。
+ */
+public class SoundRecorder {
+
+    /**
+     * 在调用线程中直接回调
+     */
+    public static final Executor DIRECT_EXECUTOR = new Executor() {
+        @Override
+        public void execute(Runnable command) {
+            command.run();
+        }
+    };
+
+    /**
+     * 帧队列容量，麦克风每帧约 40ms，可缓冲约 2.5 秒的存储卡顿
+     */
+    private static final int RING_FRAMES = 64;
+
+    /**
+     * 分发给回调与分析线程的帧池容量，回调线程积压超过该帧数时丢弃分发
+     */
+    private static final int POOL_FRAMES = 64;
+
+    /**
+     * 非实时数据源队列满时的等待间隔
+     */
+    private static final long BACKPRESSURE_PARK_NANOS = 200000L;
+
+    /**
+     * 计时回调间隔，毫秒
+     */
+    private static final long TICK_INTERVAL_MILLIS = 1000L;
+
+    /**
+     * 准备中被取消的录音的结果，没有结果文件
+     */
+    private static final Future<File> CANCELLED_RESULT = cancelledResult();
+
+    /**
+     * 录制状态机，start / stop / pause / resume 可在任意线程调用
+     */
+    private final RecordStateMachine mState = new RecordStateMachine();
+    /**
+     * 需要通知的状态切换与投递通知在这把锁内一起完成，监听按切换的先后收到状态；
+     * 只读取状态时不加锁
+     */
+    private final Object mStateNotifyLock = new Object();
+    /**
+     * 录音参数配置类
+     */
+    private RecordConfig mConfig;
+    /**
+     * 音频数据源
+     */
+    private AudioSource mAudioSource;
+    /**
+     * 默认回调执行器，未在配置中单独指定执行器的回调使用
+     */
+    private final Executor mCallbackExecutor;
+
+    /**
+     * 录音执行子线程，持有本次录音的结果文件与写入器
+     */
+    private volatile AudioRecordThread mAudioRecordThread;
+
+    /**
+     * 本次（或最近一次）录音的结果，收尾完成后可取得
+     */
+    private volatile Future<File> mResultFuture;
+
+    /**
+     * 采集线程与写文件线程之间的帧队列，按数据源的读取大小预分配
+     */
+    private FrameRingBuffer mFrameRing;
+
+    /**
+     * 数据回调与频谱分析共享的帧池，按数据源的读取大小预分配
+     */
+    private AudioFramePool mFramePool;
+
+    /**
+     * 已录时间，毫秒，由采集线程按写入结果文件的采样数计算
+     */
+    private volatile long mRecordedTime = 0L;
+
+    /**
+     * 频谱分析线程，每次录音一个
+     */
+    private AnalysisWorker mAnalysisWorker;
+
+    /**
+     * 原始 PCM 的电平表，每次录音一个，只由采集线程更新
+     */
+    private volatile LevelMeter mLevelMeter;
+
+    /**
+     * 音量、频谱与计时回调按刷新率合并投递，每次录音创建；执行器相同的回调共用一个
+     */
+    private DisplayDispatcher mLevelDispatcher;
+    private DisplayDispatcher mSpectrumDispatcher;
+    private DisplayDispatcher mTickDispatcher;
+
+    /**
+     * 吞吐统计，每次录音一个，上一次录音收尾时不受新录音影响
+     */
+    private volatile RecordStats mStats = new RecordStats();
+
+    /**
+     * 录音计时监听
+     */
+    private OnRecordCountDownTimerListener mOnRecordCountDownTimerListener;
+    /**
+     * 当前录制状态监听
+     */
+    private OnRecordStateListener mRecordStateListener;
+    /**
+     * 录制音量大小监听
+     */
+    private OnRecordSoundSizeListener mRecordSoundSizeListener;
+    /**
+     * 录制监听
+     */
+    private OnRecordDataRangeListener mRecordDataListener;
+    /**
+     * 录音文件
+     */
+    private OnRecordResultListener mRecordResultListener;
+    /**
+     * 录音可视化数据
+     */
+    private OnRecordFftDataListener mRecordFftDataListener;
+
+    public SoundRecorder(RecordConfig config) {
+        this(config, DIRECT_EXECUTOR);
+    }
+
+    /**
+     * @param config           录音参数
+     * @param callbackExecutor 回调执行器
+     */
+    public SoundRecorder(RecordConfig config, Executor callbackExecutor) {
+        this.mConfig = config;
+        this.mCallbackExecutor = callbackExecutor;
+    }
+
+    public void setConfig(RecordConfig config) {
+        this.mConfig = config;
+    }
+
+    public RecordConfig getConfig() {
+        return mConfig;
+    }
+
+    /**
+     * 设置数据源，录音过程中设置在下一次开始录音时生效
+     */
+    public void setAudioSource(AudioSource audioSource) {
+        this.mAudioSource = audioSource;
+    }
+
+    public AudioSource getAudioSource() {
+        return mAudioSource;
+    }
+
+    public int getState() {
+        return mState.getPublicState();
+    }
+
+    /**
+     * @return 当前或最近一次录音的电平表，可读取峰值、均方根与 dBFS；准备录音前为 null
+     */
+    public LevelMeter getLevelMeter() {
+        return mLevelMeter;
+    }
+
+    /**
+     * @return 当前或最近一次录音已写入结果文件的时长，毫秒，按采样数计算，不含暂停与丢弃的数据
+     */
+    public long getRecordedTime() {
+        return mRecordedTime;
+    }
+
+    /**
+     * 当前或最近一次录音的吞吐统计，每次准备录音时换成新的实例
+     */
+    public RecordStats getStats() {
+        return mStats;
+    }
+
+    /**
+     * 初始化频谱分析线程，按数据源的实际格式解析 PCM
+     */
+    private void initAnalysis() {
+        StftProcessor stftProcessor = new StftProcessor(
+                mConfig.getFftFrameSize(),
+                mConfig.getFftHopSize(),
+                mConfig.getFftWindow(),
+                mAudioSource.getChannelCount(),
+                mAudioSource.getSampleBits(),
+                mConfig.getFftPrecision());
+        mAnalysisWorker = new AnalysisWorker(stftProcessor,
+                mAudioSource.getBufferSize(),
+                mAudioSource.getChannelCount() * mAudioSource.getSampleBits() / 8,
+                new AnalysisWorker.OnAnalysisListener() {
+                    @Override
+                    public void onAnalysis(byte[] fftData) {
+                        mSpectrumDispatcher.postSpectrum(fftData);
+                    }
+                },
+                mStats);
+        mAnalysisWorker.start();
+    }
+
+    private void initDisplayDispatcher() {
+        DisplayDispatcher.Target target = new DisplayDispatcher.Target() {
+            @Override
+            public void onLevel(int db) {
+                if (mRecordSoundSizeListener != null) {
+                    mRecordSoundSizeListener.onSoundSize(db);
+                }
+            }
+
+            @Override
+            public void onSpectrum(byte[] fftData) {
+                if (mRecordFftDataListener != null) {
+                    mRecordFftDataListener.onFftData(fftData);
+                }
+            }
+
+            @Override
+            public void onTick(long millis) {
+                if (mOnRecordCountDownTimerListener != null) {
+                    mOnRecordCountDownTimerListener.onTick(millis);
+                }
+            }
+        };
+        int rate = mConfig.getDisplayRate();
+        Executor levelExecutor = executor(mConfig.getSoundSizeExecutor());
+        Executor spectrumExecutor = executor(mConfig.getFftDataExecutor());
+        Executor tickExecutor = executor(mConfig.getCountDownExecutor());
+        mLevelDispatcher = new DisplayDispatcher(levelExecutor, rate, target);
+        mSpectrumDispatcher = spectrumExecutor == levelExecutor
+                ? mLevelDispatcher : new DisplayDispatcher(spectrumExecutor, rate, target);
+        if (tickExecutor == levelExecutor) {
+            mTickDispatcher = mLevelDispatcher;
+        } else if (tickExecutor == spectrumExecutor) {
+            mTickDispatcher = mSpectrumDispatcher;
+        } else {
+            mTickDispatcher = new DisplayDispatcher(tickExecutor, rate, target);
+        }
+    }
+
+    /**
+     * @param executor 配置中单独指定的执行器
+     * @return 指定的执行器，未指定时为默认回调执行器
+     */
+    private Executor executor(Executor executor) {
+        return executor != null ? executor : mCallbackExecutor;
+    }
+
+    /**
+     * 预先准备录音：创建结果文件、缓冲区、数据源与采集线程，之后 {@link #start()} 只切换状态并开始读取
+     * <p>
+     * 不调用时 start 会先完成准备。准备后未开始时调用 {@link #stop()} 取消准备并删除结果文件；
+     * 准备后修改配置或数据源在下一次准备时生效。
+     */
+    public void prepare() {
+        int snapshot = mState.begin();
+        if (snapshot == RecordStateMachine.FAILED) {
+            return;
+        }
+        if (!prepareSession()) {
+            mState.finish();
+            return;
+        }
+        if (mState.advance(snapshot, RecordStateMachine.PREPARED) == RecordStateMachine.FAILED) {
+            // 准备期间已 stop，由采集线程取消
+            LockSupport.unpark(mAudioRecordThread);
+        }
+    }
+
+    private static Future<File> cancelledResult() {
+        FutureTask<File> result = new FutureTask<>(new Callable<File>() {
+            @Override
+            public File call() {
+                return null;
+            }
+        });
+        result.run();
+        return result;
+    }
+
+    /**
+     * @return 是否准备成功，失败时已通知错误并清理
+     */
+    private boolean prepareSession() {
+        if (mAudioSource == null) {
+            notifyError("未设置音频源");
+            return false;
+        }
+        AudioSource source = mAudioSource;
+        mRecordedTime = 0;
+        // 录音文件
+        File resultFile = new File(getResultFilePath());
+        mAnalysisWorker = null;
+        RecordingWriter writer = null;
+        // 数据源格式或配置不支持时各组件抛出 IllegalArgumentException，与 IOException 一样按准备失败处理，
+        // 否则状态停留在准备中，之后的 start / prepare / stop 都不再生效
+        try {
+            RecordStats stats = new RecordStats();
+            stats.reset(source.getSampleRate() * source.getChannelCount() * source.getSampleBits() / 8);
+            mStats = stats;
+            int bufferSize = source.getBufferSize();
+            // 每次录音新建队列，上一次录音异常结束时队列中可能有残留帧
+            mFrameRing = new FrameRingBuffer(RING_FRAMES, bufferSize);
+            stats.attachRing(mFrameRing);
+            if (mFramePool == null || mFramePool.getFrameSize() != bufferSize) {
+                mFramePool = new AudioFramePool(POOL_FRAMES, bufferSize);
+            }
+            source.prepare();
+            writer = openWriter(source, resultFile);
+            initDisplayDispatcher();
+            mLevelMeter = new LevelMeter(source.getSampleRate(), source.getChannelCount(), source.getSampleBits(),
+                    mConfig.getLevelWindowMillis(), mConfig.getLevelAttackMillis(), mConfig.getLevelReleaseMillis());
+            initAnalysis();
+            // 采集线程启动后等待 start
+            mAudioRecordThread = new AudioRecordThread(source, resultFile, writer);
+            mResultFuture = mAudioRecordThread.mFinalizeTask;
+            mAudioRecordThread.start();
+            return true;
+        } catch (IOException | RuntimeException e) {
+            e.printStackTrace();
+            notifyError("录音失败");
+            abortSession(source, resultFile, writer);
+            return false;
+        }
+    }
+
+    /**
+     * 准备失败时撤销已完成的部分：停止分析线程，关闭并删除结果文件，释放数据源
+     *
+     * @param writer 已打开的写入器，尚未打开时为 null
+     */
+    private void abortSession(AudioSource source, File resultFile, RecordingWriter writer) {
+        if (mAnalysisWorker != null) {
+            mAnalysisWorker.quit();
+            mAnalysisWorker = null;
+        }
+        if (writer != null) {
+            try {
+                writer.close();
+            } catch (IOException e) {
+                e.printStackTrace();
+            }
+        }
+        resultFile.delete();
+        source.release();
+    }
+
+    /**
+     * 开始录制，未准备时先完成准备；已在录制中时忽略
+     */
+    public void start() {
+        long requestNanos = System.nanoTime();
+        int snapshot = mState.snapshot();
+        int state = RecordStateMachine.stateOf(snapshot);
+        if (state == RecordStateMachine.IDLE) {
+            snapshot = mState.begin();
+            if (snapshot == RecordStateMachine.FAILED) {
+                return;
+            }
+            if (!prepareSession()) {
+                mState.finish();
+                return;
+            }
+        } else if (state == RecordStateMachine.PREPARED) {
+            snapshot = mState.advance(snapshot, RecordStateMachine.PREPARING);
+            if (snapshot == RecordStateMachine.FAILED) {
+                return;
+            }
+        } else {
+            return;
+        }
+        // PREPARING 期间只有本线程操作本次录音
+        AudioRecordThread thread = mAudioRecordThread;
+        mStats.onStartRequested(requestNanos);
+        if (advanceAndNotify(snapshot, RecordStateMachine.RECORDING) == RecordStateMachine.FAILED) {
+            // 开始前已 stop，由采集线程取消
+            LockSupport.unpark(thread);
+            return;
+        }
+        LockSupport.unpark(thread);
+    }
+
+    /**
+     * 停止录制，立即返回，文件在后台收尾
+     * <p>
+     * 采集线程把结果文件交给收尾队列后即回到空闲状态，此时可以开始新的录音，上一次的文件继续在后台完成。
+     *
+     * @return 本次录音的结果：收尾完成后为结果文件；未达到最小时长或取消准备时为 null；
+     * 录音或写文件失败时 get 抛出 ExecutionException。从未录音时返回 null
+     */
+    public Future<File> stop() {
+        while (true) {
+            int snapshot = mState.snapshot();
+            // 快照之后读取，CAS 成功时属于同一次录音
+            AudioRecordThread thread = mAudioRecordThread;
+            Future<File> result = mResultFuture;
+            switch (RecordStateMachine.stateOf(snapshot)) {
+                case RecordStateMachine.RECORDING:
+                case RecordStateMachine.PAUSE:
+                    if (advanceAndNotify(snapshot, RecordStateMachine.STOP) != RecordStateMachine.FAILED) {
+                        // 唤醒暂停中的采集线程，由其提交收尾
+                        LockSupport.unpark(thread);
+                        return result;
+                    }
+                    break;
+                case RecordStateMachine.PREPARED:
+                    if (mState.advance(snapshot, RecordStateMachine.CANCELLED) != RecordStateMachine.FAILED) {
+                        // 取消准备，采集线程在准备完成前创建，其结果为 null
+                        LockSupport.unpark(thread);
+                        return thread.mFinalizeTask;
+                    }
+                    break;
+                case RecordStateMachine.PREPARING:
+                    if (mState.advance(snapshot, RecordStateMachine.CANCELLED) != RecordStateMachine.FAILED) {
+                        // 由正在准备的线程发现并取消；mResultFuture 可能仍是上一次录音的结果，
+                        // 替换掉，之后的 stop 也不会返回上一次的文件
+                        mResultFuture = CANCELLED_RESULT;
+                        return CANCELLED_RESULT;
+                    }
+                    break;
+                default:
+                    // 空闲或已在停止中
+                    return result;
+            }
+        }
+    }
+
+    /**
+     * 暂停录制
+     */
+    public void pause() {
+        transitionAndNotify(RecordStateMachine.RECORDING, RecordStateMachine.PAUSE);
+    }
+
+    /**
+     * 继续录制
+     */
+    public void resume() {
+        long requestNanos = System.nanoTime();
+        if (mState.state() != RecordStateMachine.PAUSE) {
+            return;
+        }
+        synchronized (mStateNotifyLock) {
+            if (!transitionAndNotify(RecordStateMachine.PAUSE, RecordStateMachine.RECORDING)) {
+                return;
+            }
+            // 切换成功后才记录，stop 或另一次 resume 抢先时不留下过期的时刻
+            mStats.onResumed(requestNanos);
+        }
+        // 唤醒暂停中的采集线程；仍在结束上一段时会直接开始下一段
+        LockSupport.unpark(mAudioRecordThread);
+    }
+
+    /**
+     * 采集线程，一次录音只有一个，暂停期间挂起等待继续或停止
+     * <p>
+     * 数据源在暂停时只 stop，继续时在同一线程上重新 start，录音结束后才 release，
+     * 继续录音不再创建线程和数据源。
+     */
+    private class AudioRecordThread extends Thread {
+        /**
+         * 录制缓冲区大小
+         */
+        private int bufferSize;
+        private AudioSource mSource;
+        /**
+         * 本次录音的结果文件、写入器、统计与分析线程，不随录音引擎的字段变化
+         */
+        private final File mResultFile;
+        private final RecordingWriter mWriter;
+        private final RecordStats mSessionStats;
+        private final AnalysisWorker mSessionAnalysis;
+        private final LevelMeter mSessionLevel;
+        private final FrameRingBuffer mRing;
+        /**
+         * 收尾任务，录音结束后提交到收尾队列
+         */
+        final FutureTask<File> mFinalizeTask;
+        /**
+         * 收尾时删除结果文件：取消准备或未达到最小时长
+         */
+        private boolean mDiscard = false;
+        /**
+         * 录音失败的原因
+         */
+        private Exception mFailure;
+        /**
+         * 采样时钟：时长、计时回调与最大时长都按已写入结果文件的字节数计算，只在本线程中更新
+         */
+        private final int mBytesPerFrame;
+        private final int mSampleRate;
+        /**
+         * 最大时长，毫秒，0为不限制
+         */
+        private final long mMaxMillis;
+        /**
+         * 达到最大时长时的字节数，按采样点对齐
+         */
+        private final long mMaxBytes;
+        private long mWrittenBytes;
+        /**
+         * 下一次计时回调的序号，第 n 次回调在写满 n 秒时发出
+         */
+        private long mTickIndex;
+        /**
+         * 采集循环最后一次读取状态前的继续时刻
+         */
+        private long mResumeMark = -1;
+
+        AudioRecordThread(AudioSource source, File resultFile, RecordingWriter writer) {
+            super("SoundRecord-Capture");
+            mSource = source;
+            bufferSize = source.getBufferSize();
+            mResultFile = resultFile;
+            mWriter = writer;
+            mSessionStats = mStats;
+            mSessionAnalysis = mAnalysisWorker;
+            mSessionLevel = mLevelMeter;
+            mRing = mFrameRing;
+            mBytesPerFrame = source.getChannelCount() * source.getSampleBits() / 8;
+            mSampleRate = source.getSampleRate();
+            mMaxMillis = Math.max(0, mConfig.getRecordDuation());
+            mMaxBytes = mMaxMillis > 0 ? mMaxMillis * mSampleRate / 1000 * mBytesPerFrame : Long.MAX_VALUE;
+            mFinalizeTask = new FutureTask<>(new Callable<File>() {
+                @Override
+                public File call() throws IOException {
+                    return finalizeFile();
+                }
+            });
+            setPriority(Thread.MAX_PRIORITY);
+        }
+
+        @Override
+        public void run() {
+            int state;
+            while ((state = mState.state()) == RecordStateMachine.PREPARING
+                    || state == RecordStateMachine.PREPARED) {
+                // 等待 start 或 stop 唤醒
+                LockSupport.park(this);
+            }
+            if (state == RecordStateMachine.CANCELLED) {
+                // 开始前已 stop，取消准备
+                mDiscard = true;
+                RecordScheduler.finalizer().execute(mFinalizeTask);
+                mSessionAnalysis.quit();
+                mSource.release();
+                mState.finish();
+                return;
+            }
+            // 写文件线程每次录音一个，暂停后继续不重新创建
+            FrameWriterThread writer = new FrameWriterThread(mRing, mWriter);
+            writer.start();
+            try {
+                boolean resumed = false;
+                // 开始计时
+                onClockAdvanced();
+                while (true) {
+                    while ((state = mState.state()) == RecordStateMachine.PAUSE) {
+                        // 等待 resume 或 stop 唤醒
+                        LockSupport.park(this);
+                    }
+                    if (state != RecordStateMachine.RECORDING) {
+                        break;
+                    }
+                    recordSegment(writer, resumed);
+                    resumed = true;
+                }
+                // 写入队列中剩余的数据
+                writer.finish();
+                // 判断是否满足最小时长
+                if (mConfig.getMinRecordDuation() > mRecordedTime) {
+                    executor(mConfig.getCountDownExecutor()).execute(new Runnable() {
+                        @Override
+                        public void run() {
+                            if (null != mOnRecordCountDownTimerListener) {
+                                mOnRecordCountDownTimerListener.onNotEnough();
+                            }
+                        }
+                    });
+                    // 删除文件
+                    mDiscard = true;
+                }
+            } catch (Exception e) {
+                e.printStackTrace();
+                notifyError("录音失败");
+                mFailure = e;
+                try {
+                    // 失败时也要等写文件线程结束，之后才能关闭文件
+                    writer.finish();
+                } catch (IOException ignored) {
+                    // 已按录音失败处理
+                }
+            }
+            // 写文件线程已结束，剩余的回填文件头、关闭文件交给收尾队列
+            RecordScheduler.finalizer().execute(mFinalizeTask);
+            mSessionAnalysis.quit();
+            mSource.release();
+            // finish 之后即可开始下一次录音，收到 IDLE 时调用 start 不会被忽略；
+            // 下一次的 RECORDING 同样在锁内投递，排在本次的 IDLE 之后
+            synchronized (mStateNotifyLock) {
+                mState.finish();
+                notifyState(SoundRecordState.IDLE);
+            }
+        }
+
+        /**
+         * 写入结果文件后更新已录时间，跨过整秒时发出计时回调；回调的是剩余时长，未限制最大时长时不回调
+         */
+        private void onClockAdvanced() {
+            long recorded = mWrittenBytes / mBytesPerFrame * 1000 / mSampleRate;
+            mRecordedTime = recorded;
+            if (mMaxMillis == 0) {
+                return;
+            }
+            while (recorded >= mTickIndex * TICK_INTERVAL_MILLIS) {
+                if (mOnRecordCountDownTimerListener != null) {
+                    mTickDispatcher.postTick(mMaxMillis - mTickIndex * TICK_INTERVAL_MILLIS);
+                }
+                mTickIndex++;
+            }
+        }
+
+        /**
+         * 已写满最大时长：停止录音并通知计时结束，最后一次计时回调与结束通知一起发出
+         */
+        private void onMaxDuration() {
+            if (!transitionAndNotify(RecordStateMachine.RECORDING, RecordStateMachine.STOP)) {
+                // 同时被暂停或停止
+                return;
+            }
+            mTickDispatcher.clearTick();
+            executor(mConfig.getCountDownExecutor()).execute(new Runnable() {
+                @Override
+                public void run() {
+                    if (null != mOnRecordCountDownTimerListener) {
+                        mOnRecordCountDownTimerListener.onTick(0);
+                        mOnRecordCountDownTimerListener.onFinish();
+                    }
+                }
+            });
+        }
+
+        /**
+         * 在收尾队列中执行：回填文件头、关闭结果文件并通知结果
+         * <p>
+         * 数据在录制过程中已写入结果文件，这里只回填文件头，耗时与录音时长无关
+         *
+         * @return 结果文件，需删除时为 null
+         */
+        private File finalizeFile() throws IOException {
+            IOException closeError = null;
+            try {
+                mWriter.close();
+            } catch (IOException e) {
+                e.printStackTrace();
+                closeError = e;
+            } finally {
+                mSessionStats.onWriterClosed(mWriter.getWriteCalls(), mWriter.getForceCalls());
+            }
+            if (mDiscard) {
+                mResultFile.delete();
+                return null;
+            }
+            if (mFailure != null) {
+                // 已写入的数据保留在结果文件中
+                throw new IOException("录音失败", mFailure);
+            }
+            if (closeError != null) {
+                notifyError("写入文件失败");
+                throw closeError;
+            }
+            notifyFinish(mResultFile);
+            return mResultFile;
+        }
+
+        /**
+         * 采集循环的条件；先取继续时刻再读状态，循环结束时据此判断继续是否发生在读取状态之前
+         */
+        private boolean isRecording() {
+            mResumeMark = mSessionStats.getResumeMark();
+            return mState.state() == RecordStateMachine.RECORDING;
+        }
+
+        /**
+         * 录制一段（开始或继续到暂停或停止），数据直接追加到结果文件，暂停后继续时接着写入同一个文件
+         * <p>
+         * 本线程只读取数据并放入帧队列，由 {@link FrameWriterThread} 写入文件；
+         * 队列满时丢弃本帧并计入 overrun，保证 read 不被磁盘写入阻塞。
+         *
+         * @param writer  本次录音的写文件线程
+         * @param resumed 是否为暂停后继续
+         */
+        private void recordSegment(FrameWriterThread writer, boolean resumed) throws IOException {
+            // 队列、帧池与结果文件在准备阶段创建；上一段的数据可能仍在队列中，按顺序写在本段之前
+            FrameRingBuffer ring = mRing;
+            AudioFramePool framePool = mFramePool;
+            Executor dataExecutor = executor(mConfig.getDataExecutor());
+            // 同线程回调时直接传入队列中的帧，不复制
+            boolean directData = dataExecutor == DIRECT_EXECUTOR;
+            mSessionStats.onSegmentStart();
+            // 只有继续的一段按 resume 计算延迟，本段中途的暂停、继续不计入
+            long resumeRequestNanos = resumed ? mSessionStats.takeResume() : -1;
+            try {
+                mSource.start();
+                AnalysisWorker analysisWorker = mSessionAnalysis;
+                if (resumed) {
+                    // 暂停前后的数据不拼接成同一帧，电平从静音重新开始
+                    analysisWorker.discontinuity();
+                    mSessionLevel.reset();
+                }
+                byte[] dropBuffer = null;
+                boolean realtime = mSource.isRealtime();
+                boolean firstRead = true;
+
+                while (isRecording()) {
+                    byte[] byteBuffer = ring.claim();
+                    if (byteBuffer == null && !realtime) {
+                        // 非实时数据源等待写文件线程腾出空间
+                        while ((byteBuffer = ring.claim()) == null && writer.getError() == null
+                                && mState.state() == RecordStateMachine.RECORDING) {
+                            writer.wakeUp();
+                            LockSupport.parkNanos(BACKPRESSURE_PARK_NANOS);
+                        }
+                        if (writer.getError() != null) {
+                            throw writer.getError();
+                        }
+                        if (byteBuffer == null) {
+                            // 等待期间暂停或停止
+                            continue;
+                        }
+                    }
+                    boolean claimed = byteBuffer != null;
+                    if (!claimed) {
+                        if (dropBuffer == null) {
+                            dropBuffer = new byte[bufferSize];
+                        }
+                        byteBuffer = dropBuffer;
+                    }
+                    int end = mSource.read(byteBuffer, 0, byteBuffer.length);
+                    if (end < 0) {
+                        // 数据源结束，按停止处理；同时暂停时继续后再次读到结束
+                        transitionAndNotify(RecordStateMachine.RECORDING, RecordStateMachine.STOP);
+                        break;
+                    }
+                    if (firstRead) {
+                        firstRead = false;
+                        mSessionStats.onFirstSample(resumeRequestNanos);
+                    }
+                    boolean reachedMax = false;
+                    if (claimed && end >= mMaxBytes - mWrittenBytes) {
+                        // 在最大时长处截断，丢弃之后的采样
+                        end = (int) (mMaxBytes - mWrittenBytes);
+                        reachedMax = true;
+                    }
+                    mSessionStats.onCaptured(end);
+                    OnRecordDataRangeListener dataListener = mRecordDataListener;
+                    if (dataListener != null && directData && end > 0) {
+                        dataListener.onData(byteBuffer, 0, end);
+                    }
+                    boolean postData = dataListener != null && !directData;
+                    // 电平始终统计，可通过 getLevelMeter 读取；有监听时每个窗口投递一次
+                    if (mSessionLevel.process(byteBuffer, 0, end) && mRecordSoundSizeListener != null) {
+                        mLevelDispatcher.postLevel(mSessionLevel.getSoundSize());
+                    }
+                    boolean analyse = mRecordFftDataListener != null;
+                    if ((postData || analyse) && end > 0) {
+                        // 队列中的帧会被下一次 read 覆盖，复制一次到共享帧后分发
+                        AudioFrame frame = framePool.acquire();
+                        if (frame == null) {
+                            mSessionStats.onPoolExhausted();
+                        } else {
+                            frame.set(byteBuffer, end);
+                            if (analyse) {
+                                analysisWorker.offer(frame);
+                            }
+                            if (postData) {
+                                notifyData(frame, dataExecutor);
+                            }
+                            frame.release();
+                        }
+                    }
+                    if (claimed) {
+                        ring.publish(end);
+                        mSessionStats.onFramePublished();
+                        writer.wakeUp();
+                        mWrittenBytes += end;
+                        if (reachedMax) {
+                            // 最后一次计时回调随结束通知发出
+                            mTickIndex = Long.MAX_VALUE / TICK_INTERVAL_MILLIS;
+                        }
+                        onClockAdvanced();
+                    } else {
+                        mSessionStats.onOverrun();
+                    }
+                    if (writer.getError() != null) {
+                        throw writer.getError();
+                    }
+                    if (reachedMax) {
+                        onMaxDuration();
+                        break;
+                    }
+                }
+                // 暂停后未被发现即已继续时，本段没有结束，那次继续的时刻不属于任何新的一段
+                mSessionStats.discardResume(mResumeMark);
+                mSource.stop();
+                if (mRecordSoundSizeListener != null) {
+                    // 暂停或停止后音量归零，晚于本段最后一次电平
+                    mLevelDispatcher.postLevel(0);
+                }
+                // 写文件线程写到本段结尾时刷盘，暂停期间文件中的数据完整；不等待写入完成
+                ring.markSegmentEnd();
+                writer.wakeUp();
+            } finally {
+                mSessionStats.onSegmentEnd();
+            }
+        }
+    }
+
+    /**
+     * 打开结果文件，WAV 格式预留文件头，格式取自数据源
+     */
+    private RecordingWriter openWriter(AudioSource source, File resultFile) throws IOException {
+        if (mConfig.getRecordFormat() == RecordConfig.SoundRecordFormat.WAV) {
+            return RecordingWriter.wav(resultFile, source.getSampleRate(), source.getChannelCount(),
+                    source.getSampleBits(), mConfig.getWriteBufferSize(), mConfig.getFlushPolicy());
+        }
+        return new RecordingWriter(resultFile, mConfig.getWriteBufferSize(), mConfig.getFlushPolicy());
+    }
+
+    /**
+     * 按快照切换状态并通知切换后的状态
+     *
+     * @param to 切换后的状态，只用于对外可见的状态
+     * @return 切换后的快照，未切换时为 {@link RecordStateMachine#FAILED}，此时不通知
+     */
+    private int advanceAndNotify(int snapshot, int to) {
+        synchronized (mStateNotifyLock) {
+            int next = mState.advance(snapshot, to);
+            if (next != RecordStateMachine.FAILED) {
+                notifyState(to);
+            }
+            return next;
+        }
+    }
+
+    /**
+     * 当前录音内切换状态并通知切换后的状态
+     *
+     * @return 是否由本次调用完成切换，未切换时不通知
+     */
+    private boolean transitionAndNotify(int from, int to) {
+        synchronized (mStateNotifyLock) {
+            if (!mState.transition(from, to)) {
+                return false;
+            }
+            notifyState(to);
+            return true;
+        }
+    }
+
+    /**
+     * 录制状态通知
+     *
+     * @param state 切换后的状态，由完成切换的线程传入
+     */
+    private void notifyState(final int state) {
+        if (mRecordStateListener == null) {
+            return;
+        }
+        executor(mConfig.getStateExecutor()).execute(new Runnable() {
+            @Override
+            public void run() {
+                mRecordStateListener.onStateChange(state);
+            }
+        });
+
+        if (state == SoundRecordState.STOP || state == SoundRecordState.PAUSE) {
+            // 暂停、停止录音时，音量为0，很对
+            if (mRecordSoundSizeListener != null && mLevelDispatcher != null) {
+                mLevelDispatcher.postLevel(0);
+            }
+        }
+    }
+
+    /**
+     * 录制中数据通知，回调执行完后释放帧
+     *
+     * @param frame    录制的音频
+     * @param executor 数据回调执行器
+     */
+    private void notifyData(final AudioFrame frame, Executor executor) {
+        frame.retain();
+        executor.execute(new Runnable() {
+            @Override
+            public void run() {
+                try {
+                    OnRecordDataRangeListener dataListener = mRecordDataListener;
+                    if (dataListener != null) {
+                        dataListener.onData(frame.getData(), 0, frame.getLength());
+                    }
+                } finally {
+                    frame.release();
+                }
+            }
+        });
+    }
+
+    /**
+     * 录制完成通知
+     */
+    private void notifyFinish(final File resultFile) {
+        executor(mConfig.getStateExecutor()).execute(new Runnable() {
+            @Override
+            public void run() {
+                if (mRecordStateListener != null) {
+                    mRecordStateListener.onStateChange(SoundRecordState.FINISH);
+                }
+            }
+        });
+        executor(mConfig.getResultExecutor()).execute(new Runnable() {
+            @Override
+            public void run() {
+                if (mRecordResultListener != null) {
+                    mRecordResultListener.onResult(resultFile);
+                }
+            }
+        });
+    }
+
+    /**
+     * 录制失败通知
+     *
+     * @param error 失败信息
+     */
+    private void notifyError(final String error) {
+        if (mRecordStateListener == null) {
+            return;
+        }
+        executor(mConfig.getStateExecutor()).execute(new Runnable() {
+            @Override
+            public void run() {
+                mRecordStateListener.onError(error);
+            }
+        });
+    }
+
+
+    private String getResultFilePath() {
+        String fileDir = mConfig.getAudioRecordDir();
+        createOrExistsDir(new File(fileDir));
+        String fileName = new SimpleDateFormat("yyyyMMdd_HH_mm_ss", Locale.SIMPLIFIED_CHINESE).format(new Date(System.currentTimeMillis()));
+        String extension = mConfig.getRecordFormat().getExtension();
+        String path = String.format(Locale.getDefault(), "%s%s%s", fileDir, fileName, extension);
+        // 同一秒内再次录音时，上一个文件可能仍在收尾
+        for (int i = 1; new File(path).exists(); i++) {
+            path = String.format(Locale.getDefault(), "%s%s_%d%s", fileDir, fileName, i, extension);
+        }
+        return path;
+    }
+
+    public boolean createOrExistsDir(final File file) {
+        return file != null && (file.exists() ? file.isDirectory() : file.mkdirs());
+    }
+
+
+    public void setRecordStateListener(OnRecordStateListener recordStateListener) {
+        mRecordStateListener = recordStateListener;
+    }
+
+    public void setOnRecordCountDownTimerListener(OnRecordCountDownTimerListener onRecordCountDownTimerListener) {
+        mOnRecordCountDownTimerListener = onRecordCountDownTimerListener;
+    }
+
+    public void setRecordSoundSizeListener(OnRecordSoundSizeListener recordSoundSizeListener) {
+        mRecordSoundSizeListener = recordSoundSizeListener;
+    }
+
+    /**
+     * @deprecated 每次回调都会复制一份数据，请使用 {@link #setRecordDataRangeListener(OnRecordDataRangeListener)}
+     */
+    @Deprecated
+    public void setRecordDataListener(final OnRecordDataListener recordDataListener) {
+        if (recordDataListener == null) {
+            mRecordDataListener = null;
+            return;
+        }
+        mRecordDataListener = new OnRecordDataRangeListener() {
+            @Override
+            public void onData(byte[] data, int offset, int length) {
+                // 旧接口按数组长度取数据，复制出恰好等长的数组
+                recordDataListener.onData(Arrays.copyOfRange(data, offset, offset + length));
+            }
+        };
+    }
+
+    public void setRecordDataRangeListener(OnRecordDataRangeListener recordDataListener) {
+        mRecordDataListener = recordDataListener;
+    }
+
+    public void setRecordResultListener(OnRecordResultListener recordResultListener) {
+        mRecordResultListener = recordResultListener;
+    }
+
+    public void setRecordFftDataListener(OnRecordFftDataListener recordFftDataListener) {
+        mRecordFftDataListener = recordFftDataListener;
+    }
+}
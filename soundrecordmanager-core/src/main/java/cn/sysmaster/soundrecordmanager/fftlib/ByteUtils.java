@@ -132,6 +132,19 @@ public class ByteUtils {
         return dest;
     }
 
+    /**
+     * byte[]（16bit 小端）转 double[]，写入已有数组，不分配内存
+     *
+     * @param src   源数据
+     * @param dest  目标数组
+     * @param count 转换的采样点数
+     */
+    public static void toDoubles(byte[] src, double[] dest, int count) {
+        for (int i = 0; i < count; i++) {
+            dest[i] = (short) ((src[i * 2] & 0xff) | ((src[2 * i + 1] & 0xff) << 8));
+        }
+    }
+
     public static byte[] merger(byte[] bt1, byte[] bt2) {
         byte[] bt3 = new byte[bt1.length + bt2.length];
         System.arraycopy(bt1, 0, bt3, 0, bt1.length);
@@ -0,0 +1,146 @@
+package cn.sysmaster.soundrecordmanager.fftlib;
+
+import java.util.Arrays;
+
+/**
+ * 复数数组
+ * <p>
+ * 用两个 double[] 分别保存实部和虚部，代替 {@link Complex}[]。
+ * 所有批量运算都在原数组上进行并返回自身，不创建新对象。
+ *
+ * @author dabo
+ */
+public final class ComplexBuffer {
+
+    /**
+     * 实数部分
+     */
+    private final double[] mRe;
+
+    /**
+     * 虚数部分
+     */
+    private final double[] mIm;
+
+    public ComplexBuffer(int size) {
+        this(new double[size], new double[size]);
+    }
+
+    /**
+     * 包装已有数组，不复制
+     */
+    public ComplexBuffer(double[] re, double[] im) {
+        if (re.length != im.length) {
+            throw new IllegalArgumentException("Dimensions don't agree");
+        }
+        mRe = re;
+        mIm = im;
+    }
+
+    public static ComplexBuffer valueOf(Complex[] x) {
+        ComplexBuffer buffer = new ComplexBuffer(x.length);
+        for (int i = 0; i < x.length; i++) {
+            buffer.mRe[i] = x[i].re();
+            buffer.mIm[i] = x[i].im();
+        }
+        return buffer;
+    }
+
+    public Complex[] toComplexArray() {
+        Complex[] y = new Complex[mRe.length];
+        for (int i = 0; i < y.length; i++) {
+            y[i] = new Complex(mRe[i], mIm[i]);
+        }
+        return y;
+    }
+
+    public int size() {
+        return mRe.length;
+    }
+
+    public double[] re() {
+        return mRe;
+    }
+
+    public double[] im() {
+        return mIm;
+    }
+
+    public void set(int index, double re, double im) {
+        mRe[index] = re;
+        mIm[index] = im;
+    }
+
+    /**
+     * 全部置零
+     */
+    public ComplexBuffer clear() {
+        Arrays.fill(mRe, 0);
+        Arrays.fill(mIm, 0);
+        return this;
+    }
+
+    /**
+     * 从另一个数组复制，长度不足的部分补零
+     */
+    public ComplexBuffer copyFrom(ComplexBuffer b) {
+        int count = Math.min(size(), b.size());
+        System.arraycopy(b.mRe, 0, mRe, 0, count);
+        System.arraycopy(b.mIm, 0, mIm, 0, count);
+        Arrays.fill(mRe, count, mRe.length, 0);
+        Arrays.fill(mIm, count, mIm.length, 0);
+        return this;
+    }
+
+    /**
+     * 逐点相乘 this = this * b
+     */
+    public ComplexBuffer multiply(ComplexBuffer b) {
+        if (b.size() != size()) {
+            throw new IllegalArgumentException("Dimensions don't agree");
+        }
+        double[] re = mRe;
+        double[] im = mIm;
+        double[] bre = b.mRe;
+        double[] bim = b.mIm;
+        for (int i = 0; i < re.length; i++) {
+            double r = re[i] * bre[i] - im[i] * bim[i];
+            im[i] = re[i] * bim[i] + im[i] * bre[i];
+            re[i] = r;
+        }
+        return this;
+    }
+
+    /**
+     * 取共轭
+     */
+    public ComplexBuffer conjugate() {
+        double[] im = mIm;
+        for (int i = 0; i < im.length; i++) {
+            im[i] = -im[i];
+        }
+        return this;
+    }
+
+    /**
+     * 乘以实数 alpha
+     */
+    public ComplexBuffer scale(double alpha) {
+        double[] re = mRe;
+        double[] im = mIm;
+        for (int i = 0; i < re.length; i++) {
+            re[i] *= alpha;
+            im[i] *= alpha;
+        }
+        return this;
+    }
+
+    /**
+     * 计算每个点的模
+     *
+     * @param out 输出，写入前 min(out.length, size) 个点
+     */
+    public void magnitude(double[] out) {
+        FftEngine.magnitude(mRe, mIm, 1, out, Math.min(out.length, size()));
+    }
+}
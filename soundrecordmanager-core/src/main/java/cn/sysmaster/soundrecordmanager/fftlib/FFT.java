@@ -0,0 +1,123 @@
+package cn.sysmaster.soundrecordmanager.fftlib;
+
+
+public class FFT {
+
+    // compute the FFT of x[], of any length
+    public static Complex[] fft(Complex[] x) {
+        return fft(ComplexBuffer.valueOf(x)).toComplexArray();
+    }
+
+    // compute the FFT of x in place, of any length
+    public static ComplexBuffer fft(ComplexBuffer x) {
+        FftEngine.transform(x.re(), x.im());
+        return x;
+    }
+
+    public static double[] fft(double[] x, int sc) {
+        int len = x.length;
+        if (len == 1) {
+            return x;
+        }
+        double[] ds = new double[len / 2];
+        new FftEngine(len).magnitude(x, 2.0 * sc / len, ds);
+        return ds;
+    }
+
+    // compute the magnitudes of the n/2+1 non-redundant bins of a real input
+    public static double[] rfft(double[] x, int sc) {
+        int len = x.length;
+        FftEngine engine = new FftEngine(len);
+        double[] ds = new double[engine.getBinCount()];
+        engine.magnitude(x, 2.0 * sc / len, ds);
+        return ds;
+    }
+
+
+    // compute the inverse FFT of x[], of any length
+    public static Complex[] ifft(Complex[] x) {
+        return ifft(ComplexBuffer.valueOf(x)).toComplexArray();
+    }
+
+    // compute the inverse FFT of x in place, of any length
+    public static ComplexBuffer ifft(ComplexBuffer x) {
+        FftEngine.inverse(x.re(), x.im());
+        return x;
+    }
+
+    // compute the circular convolution of x and y
+    public static Complex[] cconvolve(Complex[] x, Complex[] y) {
+        if (x.length != y.length) {
+            throw new IllegalArgumentException("Dimensions don't agree");
+        }
+        return cconvolve(ComplexBuffer.valueOf(x), ComplexBuffer.valueOf(y)).toComplexArray();
+    }
+
+    // compute the circular convolution of x and y in place:
+    // the result is written to x, y is overwritten by its FFT
+    public static ComplexBuffer cconvolve(ComplexBuffer x, ComplexBuffer y) {
+
+        // should probably pad x and y with 0s so that they have same length
+        // and are powers of 2
+        if (x.size() != y.size()) {
+            throw new IllegalArgumentException("Dimensions don't agree");
+        }
+
+        // compute FFT of each sequence, point-wise multiply, inverse FFT
+        fft(x);
+        fft(y);
+        x.multiply(y);
+        return ifft(x);
+    }
+
+
+    // compute the linear convolution of x and y
+    public static Complex[] convolve(Complex[] x, Complex[] y) {
+        return convolve(ComplexBuffer.valueOf(x), ComplexBuffer.valueOf(y)).toComplexArray();
+    }
+
+    // compute the linear convolution of x and y, x and y are left untouched
+    public static ComplexBuffer convolve(ComplexBuffer x, ComplexBuffer y) {
+        ComplexBuffer a = new ComplexBuffer(2 * x.size()).copyFrom(x);
+        ComplexBuffer b = new ComplexBuffer(2 * y.size()).copyFrom(y);
+        return cconvolve(a, b);
+    }
+
+    // display an array of Complex numbers to standard output
+    public static void show(Complex[] x, String title) {
+        System.out.println(title);
+        System.out.println("-------------------");
+        for (int i = 0; i < SIZE; i++) {
+            System.out.println(x[i]);
+        }
+        System.out.println();
+    }
+
+    private static final int SIZE = 16384 / 4;
+
+    public static double fun(int x) {
+        return Math.sin(15f * x);//f= 3.142
+    }
+
+    public static double getY(double[] d) {
+        double y = 0;
+        int x = 0;
+        for (int i = 0; i < d.length; i++) {
+            if (d[i] > y) {
+                y = d[i];
+                x = i;
+            }
+        }
+        x++;
+        log(String.format("x： %s ， y: %s", x, y));
+        log(String.format("频率： %sHz", (float) x / SIZE));
+        log(String.format("频率2： %sHz", (float) (SIZE - x) / SIZE));
+        log(String.format("振幅： %s", y));
+        return y;
+    }
+
+    public static void log(String s) {
+        System.out.println(s);
+    }
+
+}
\ No newline at end of file
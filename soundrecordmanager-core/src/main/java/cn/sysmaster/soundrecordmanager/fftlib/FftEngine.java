@@ -0,0 +1,108 @@
+package cn.sysmaster.soundrecordmanager.fftlib;
+
+/**
+ * 原地 FFT（基2 / 混合基 / Bluestein，见 {@link FftPlan}）
+ * <p>
+ * 直接在 double[] 实部/虚部数组上做变换，不创建任何 {@link Complex} 对象。
+ * 旋转因子和位反转表来自共享的 {@link FftPlan}；实例只持有固定长度的工作缓冲区，
+ * 重复调用 {@link #magnitude(double[], double, double[])} 时不再分配内存。
+ * 实数输入走 {@link RealFftPlan}，只计算 N/2+1 个非冗余频点。
+ * 实例本身非线程安全，每个线程应使用自己的实例。
+ *
+ * @author dabo
+ */
+public final class FftEngine {
+
+    /**
+     * 实数变换计划
+     */
+    private final RealFftPlan mPlan;
+
+    /**
+     * 实部工作缓冲区
+     */
+    private final double[] mRe;
+
+    /**
+     * 虚部工作缓冲区
+     */
+    private final double[] mIm;
+
+    public FftEngine(int size) {
+        mPlan = RealFftPlan.get(size);
+        mRe = new double[mPlan.getBinCount()];
+        mIm = new double[mPlan.getBinCount()];
+    }
+
+    public int getSize() {
+        return mPlan.getSize();
+    }
+
+    /**
+     * 输出的频点数 size/2+1
+     */
+    public int getBinCount() {
+        return mPlan.getBinCount();
+    }
+
+    /**
+     * 计算实数序列的幅度谱
+     *
+     * @param x     输入序列，至少 size 个点
+     * @param scale 幅度缩放系数
+     * @param out   输出，写入前 min(out.length, size/2+1) 个频点的幅度
+     */
+    public void magnitude(double[] x, double scale, double[] out) {
+        mPlan.magnitude(x, scale, mRe, mIm, out);
+    }
+
+    /**
+     * 原地正变换
+     *
+     * @param re 实部，任意长度
+     * @param im 虚部，长度与实部相同
+     */
+    public static void transform(double[] re, double[] im) {
+        if (im.length != re.length) {
+            throw new IllegalArgumentException("Dimensions don't agree");
+        }
+        FftPlan.get(re.length).transform(re, im);
+    }
+
+    /**
+     * 原地逆变换，结果已除以 n
+     */
+    public static void inverse(double[] re, double[] im) {
+        if (im.length != re.length) {
+            throw new IllegalArgumentException("Dimensions don't agree");
+        }
+        FftPlan.get(re.length).inverse(re, im);
+    }
+
+    /**
+     * 计算幅度 sqrt(re^2 + im^2) * scale
+     */
+    public static void magnitude(double[] re, double[] im, double scale, double[] out, int count) {
+        for (int i = 0; i < count; i++) {
+            out[i] = Math.sqrt(re[i] * re[i] + im[i] * im[i]) * scale;
+        }
+    }
+
+    /**
+     * 计算幅度 sqrt(re^2 + im^2) * scale（单精度）
+     */
+    public static void magnitude(float[] re, float[] im, float scale, float[] out, int count) {
+        for (int i = 0; i < count; i++) {
+            out[i] = (float) Math.sqrt(re[i] * re[i] + im[i] * im[i]) * scale;
+        }
+    }
+
+    /**
+     * 计算幅度 sqrt(re^2 + im^2) * scale，单精度输入，双精度输出
+     */
+    public static void magnitude(float[] re, float[] im, double scale, double[] out, int count) {
+        for (int i = 0; i < count; i++) {
+            out[i] = Math.sqrt(re[i] * re[i] + im[i] * im[i]) * scale;
+        }
+    }
+}
@@ -0,0 +1,437 @@
+package cn.sysmaster.soundrecordmanager.fftlib;
+
+/**
+ * FFT 变换计划
+ * <p>
+ * 按变换长度预先计算旋转因子表和位反转表，之后每次变换只做查表和蝶形运算，
+ * 不再调用 Math.cos/Math.sin。计划创建后不可变，可在多个线程、多个
+ * SoundRecordManager 实例之间共享，通过 {@link #get(int)} 获取缓存的实例。
+ * 缓存只保留最近使用的 16 个长度（LRU），不断变换长度时较早的计划会被淘汰，再次获取时重新计算。
+ * <p>
+ * 支持任意长度：
+ * <ul>
+ * <li>2的幂：迭代式基2蝶形</li>
+ * <li>只含 2、3、5 因子的长度（如 640、960）：混合基 Cooley-Tukey</li>
+ * <li>其他长度：Bluestein（chirp-z）算法，借助不小于 2n-1 的2的幂长度变换完成</li>
+ * </ul>
+ * 后两种算法需要的临时缓冲区按线程缓存，首次使用后不再分配内存。
+ *
+ * @author dabo
+ */
+public final class FftPlan {
+
+    static final int RADIX_2 = 0;
+    static final int MIXED_RADIX = 1;
+    static final int BLUESTEIN = 2;
+
+    /**
+     * 计划缓存，key 为变换长度
+     */
+    private static final PlanCache<FftPlan> sPlans = new PlanCache<FftPlan>() {
+        @Override
+        protected FftPlan create(int size) {
+            return new FftPlan(size);
+        }
+    };
+
+    /**
+     * 变换长度
+     */
+    private final int mSize;
+
+    /**
+     * 算法类型
+     */
+    private final int mKind;
+
+    /**
+     * 旋转因子 exp(-2πik/n) 的实部与虚部
+     * 基2：k = 0 .. n/2-1；混合基：k = 0 .. n-1
+     */
+    private double[] mCos;
+    private double[] mSin;
+
+    /**
+     * 基2：位反转后需要交换的下标对，依次为 i0, j0, i1, j1 ...
+     */
+    private int[] mSwaps;
+
+    /**
+     * 混合基：各级基数
+     */
+    private int[] mFactors;
+
+    /**
+     * Bluestein：chirp 序列 exp(-πik²/n)
+     */
+    private double[] mChirpRe;
+    private double[] mChirpIm;
+    /**
+     * Bluestein：卷积核的频谱
+     */
+    private double[] mFilterRe;
+    private double[] mFilterIm;
+    /**
+     * Bluestein：卷积用的2的幂长度变换
+     */
+    private FftPlan mConvolutionPlan;
+
+    /**
+     * 混合基、Bluestein 使用的线程私有临时缓冲区
+     */
+    private final ThreadLocal<double[][]> mScratch = new ThreadLocal<double[][]>() {
+        @Override
+        protected double[][] initialValue() {
+            return createScratch();
+        }
+    };
+
+    private FftPlan(int size) {
+        if (size <= 0) {
+            throw new IllegalArgumentException("n must be positive");
+        }
+        mSize = size;
+        if ((size & (size - 1)) == 0) {
+            mKind = RADIX_2;
+            initRadix2();
+        } else if ((mFactors = factorize(size)) != null) {
+            mKind = MIXED_RADIX;
+            initMixedRadix();
+        } else {
+            mKind = BLUESTEIN;
+            initBluestein();
+        }
+    }
+
+    /**
+     * 获取指定长度的变换计划，缓存中没有时计算
+     *
+     * @param size 变换长度
+     */
+    public static FftPlan get(int size) {
+        return sPlans.get(size);
+    }
+
+    public int getSize() {
+        return mSize;
+    }
+
+    // ---------------------------------------------------------------- 预计算表
+    // 供 FloatFftPlan 复用，返回内部数组，调用方不得修改
+
+    int getKind() {
+        return mKind;
+    }
+
+    double[] getCos() {
+        return mCos;
+    }
+
+    double[] getSin() {
+        return mSin;
+    }
+
+    int[] getSwaps() {
+        return mSwaps;
+    }
+
+    int[] getFactors() {
+        return mFactors;
+    }
+
+    double[] getChirpRe() {
+        return mChirpRe;
+    }
+
+    double[] getChirpIm() {
+        return mChirpIm;
+    }
+
+    double[] getFilterRe() {
+        return mFilterRe;
+    }
+
+    double[] getFilterIm() {
+        return mFilterIm;
+    }
+
+    int getConvolutionSize() {
+        return mConvolutionPlan.getSize();
+    }
+
+    /**
+     * 原地正变换
+     *
+     * @param re 实部，只变换前 {@link #getSize()} 个元素
+     * @param im 虚部，只变换前 {@link #getSize()} 个元素
+     */
+    public void transform(double[] re, double[] im) {
+        if (re.length < mSize || im.length < mSize) {
+            throw new IllegalArgumentException("Dimensions don't agree");
+        }
+        switch (mKind) {
+            case RADIX_2:
+                transformRadix2(re, im);
+                break;
+            case MIXED_RADIX:
+                transformMixedRadix(re, im);
+                break;
+            default:
+                transformBluestein(re, im);
+                break;
+        }
+    }
+
+    /**
+     * 原地逆变换，结果已除以 n
+     */
+    public void inverse(double[] re, double[] im) {
+        int n = mSize;
+        // 共轭 -> 正变换 -> 共轭
+        for (int i = 0; i < n; i++) {
+            im[i] = -im[i];
+        }
+        transform(re, im);
+        double scale = 1.0 / n;
+        for (int i = 0; i < n; i++) {
+            re[i] *= scale;
+            im[i] = -im[i] * scale;
+        }
+    }
+
+    // ---------------------------------------------------------------- 基2
+
+    private void initRadix2() {
+        int size = mSize;
+        int half = size >> 1;
+        mCos = new double[half];
+        mSin = new double[half];
+        for (int k = 0; k < half; k++) {
+            double theta = -2 * Math.PI * k / size;
+            mCos[k] = Math.cos(theta);
+            mSin[k] = Math.sin(theta);
+        }
+
+        int count = 0;
+        int[] swaps = new int[size];
+        for (int i = 1, j = 0; i < size; i++) {
+            int bit = size >> 1;
+            for (; (j & bit) != 0; bit >>= 1) {
+                j ^= bit;
+            }
+            j ^= bit;
+            if (i < j) {
+                swaps[count++] = i;
+                swaps[count++] = j;
+            }
+        }
+        mSwaps = new int[count];
+        System.arraycopy(swaps, 0, mSwaps, 0, count);
+    }
+
+    private void transformRadix2(double[] re, double[] im) {
+        int n = mSize;
+        int[] swaps = mSwaps;
+        for (int s = 0; s < swaps.length; s += 2) {
+            int i = swaps[s];
+            int j = swaps[s + 1];
+            double t = re[i];
+            re[i] = re[j];
+            re[j] = t;
+            t = im[i];
+            im[i] = im[j];
+            im[j] = t;
+        }
+
+        double[] cos = mCos;
+        double[] sin = mSin;
+        for (int len = 2, step = n >> 1; len <= n; len <<= 1, step >>= 1) {
+            int half = len >> 1;
+            for (int k = 0, w = 0; k < half; k++, w += step) {
+                double wr = cos[w];
+                double wi = sin[w];
+                for (int i = k; i < n; i += len) {
+                    int j = i + half;
+                    double tr = wr * re[j] - wi * im[j];
+                    double ti = wr * im[j] + wi * re[j];
+                    re[j] = re[i] - tr;
+                    im[j] = im[i] - ti;
+                    re[i] += tr;
+                    im[i] += ti;
+                }
+            }
+        }
+    }
+
+    // ---------------------------------------------------------------- 混合基
+
+    /**
+     * 分解为 2、3、5 的乘积
+     *
+     * @return 各级基数，含其他质因子时返回 null
+     */
+    private static int[] factorize(int n) {
+        int[] factors = new int[32];
+        int count = 0;
+        for (int p : new int[]{5, 3, 2}) {
+            while (n % p == 0) {
+                factors[count++] = p;
+                n /= p;
+            }
+        }
+        if (n != 1) {
+            return null;
+        }
+        int[] result = new int[count];
+        System.arraycopy(factors, 0, result, 0, count);
+        return result;
+    }
+
+    private void initMixedRadix() {
+        int size = mSize;
+        mCos = new double[size];
+        mSin = new double[size];
+        for (int k = 0; k < size; k++) {
+            double theta = -2 * Math.PI * k / size;
+            mCos[k] = Math.cos(theta);
+            mSin[k] = Math.sin(theta);
+        }
+    }
+
+    private void transformMixedRadix(double[] re, double[] im) {
+        double[][] scratch = mScratch.get();
+        double[] inRe = scratch[0];
+        double[] inIm = scratch[1];
+        System.arraycopy(re, 0, inRe, 0, mSize);
+        System.arraycopy(im, 0, inIm, 0, mSize);
+        mixedRadix(inRe, inIm, 0, 1, re, im, 0, 0, scratch[2], scratch[3]);
+    }
+
+    /**
+     * 递归的混合基时域抽取：先把 p 个子序列的变换依次写到输出的 p 段中，
+     * 再对每个频点做一次 p 点蝶形合并
+     *
+     * @param stride      当前子序列在输入中的步长，即已处理各级基数之积
+     * @param factorIndex 当前级的基数下标
+     */
+    private void mixedRadix(double[] inRe, double[] inIm, int inOff, int stride,
+                            double[] outRe, double[] outIm, int outOff, int factorIndex,
+                            double[] tRe, double[] tIm) {
+        int n = mSize;
+        int p = mFactors[factorIndex];
+        int m = n / stride / p;
+
+        if (m == 1) {
+            for (int q = 0, i = inOff; q < p; q++, i += stride) {
+                outRe[outOff + q] = inRe[i];
+                outIm[outOff + q] = inIm[i];
+            }
+        } else {
+            for (int q = 0; q < p; q++) {
+                mixedRadix(inRe, inIm, inOff + q * stride, stride * p,
+                        outRe, outIm, outOff + q * m, factorIndex + 1, tRe, tIm);
+            }
+        }
+
+        double[] cos = mCos;
+        double[] sin = mSin;
+        for (int u = 0; u < m; u++) {
+            for (int q = 0, k = outOff + u; q < p; q++, k += m) {
+                tRe[q] = outRe[k];
+                tIm[q] = outIm[k];
+            }
+            for (int q1 = 0, k = u; q1 < p; q1++, k += m) {
+                double sumRe = tRe[0];
+                double sumIm = tIm[0];
+                int step = stride * k % n;
+                int w = 0;
+                for (int q = 1; q < p; q++) {
+                    w += step;
+                    if (w >= n) {
+                        w -= n;
+                    }
+                    sumRe += tRe[q] * cos[w] - tIm[q] * sin[w];
+                    sumIm += tRe[q] * sin[w] + tIm[q] * cos[w];
+                }
+                outRe[outOff + k] = sumRe;
+                outIm[outOff + k] = sumIm;
+            }
+        }
+    }
+
+    // ---------------------------------------------------------------- Bluestein
+
+    private void initBluestein() {
+        int n = mSize;
+        int m = Integer.highestOneBit(2 * n - 1);
+        if (m < 2 * n - 1) {
+            m <<= 1;
+        }
+        mConvolutionPlan = get(m);
+
+        mChirpRe = new double[n];
+        mChirpIm = new double[n];
+        long period = 2L * n;
+        for (int k = 0; k < n; k++) {
+            // k² 对 2n 取模，避免大 k 时的精度损失
+            double theta = -Math.PI * (((long) k * k) % period) / n;
+            mChirpRe[k] = Math.cos(theta);
+            mChirpIm[k] = Math.sin(theta);
+        }
+
+        mFilterRe = new double[m];
+        mFilterIm = new double[m];
+        mFilterRe[0] = mChirpRe[0];
+        mFilterIm[0] = -mChirpIm[0];
+        for (int k = 1; k < n; k++) {
+            mFilterRe[k] = mFilterRe[m - k] = mChirpRe[k];
+            mFilterIm[k] = mFilterIm[m - k] = -mChirpIm[k];
+        }
+        mConvolutionPlan.transform(mFilterRe, mFilterIm);
+    }
+
+    private void transformBluestein(double[] re, double[] im) {
+        int n = mSize;
+        int m = mConvolutionPlan.getSize();
+        double[][] scratch = mScratch.get();
+        double[] aRe = scratch[0];
+        double[] aIm = scratch[1];
+        double[] wRe = mChirpRe;
+        double[] wIm = mChirpIm;
+
+        // a[k] = x[k] * w[k]，其余补零
+        for (int k = 0; k < n; k++) {
+            aRe[k] = re[k] * wRe[k] - im[k] * wIm[k];
+            aIm[k] = re[k] * wIm[k] + im[k] * wRe[k];
+        }
+        for (int k = n; k < m; k++) {
+            aRe[k] = 0;
+            aIm[k] = 0;
+        }
+
+        // 与 conj(w) 做循环卷积
+        mConvolutionPlan.transform(aRe, aIm);
+        double[] bRe = mFilterRe;
+        double[] bIm = mFilterIm;
+        for (int k = 0; k < m; k++) {
+            double r = aRe[k] * bRe[k] - aIm[k] * bIm[k];
+            aIm[k] = aRe[k] * bIm[k] + aIm[k] * bRe[k];
+            aRe[k] = r;
+        }
+        mConvolutionPlan.inverse(aRe, aIm);
+
+        // X[k] = w[k] * (a * b)[k]
+        for (int k = 0; k < n; k++) {
+            re[k] = aRe[k] * wRe[k] - aIm[k] * wIm[k];
+            im[k] = aRe[k] * wIm[k] + aIm[k] * wRe[k];
+        }
+    }
+
+    private double[][] createScratch() {
+        if (mKind == MIXED_RADIX) {
+            return new double[][]{new double[mSize], new double[mSize], new double[5], new double[5]};
+        }
+        int m = mConvolutionPlan.getSize();
+        return new double[][]{new double[m], new double[m]};
+    }
+}
@@ -0,0 +1,17 @@
+package cn.sysmaster.soundrecordmanager.fftlib;
+
+/**
+ * FFT 计算精度
+ *
+ * @author dabo
+ */
+public enum FftPrecision {
+    /**
+     * 双精度
+     */
+    DOUBLE,
+    /**
+     * 单精度，内存占用和带宽减半，16bit PCM 的可视化、音量分析精度足够
+     */
+    FLOAT
+}
@@ -0,0 +1,310 @@
+package cn.sysmaster.soundrecordmanager.fftlib;
+
+/**
+ * 单精度 FFT 变换计划
+ * <p>
+ * 与 {@link FftPlan} 算法相同（基2 / 混合基 / Bluestein），数据使用 float，
+ * 内存占用和带宽减半，适合 16bit PCM 这类不需要双精度的场景。
+ * 旋转因子、位反转表、基数分解和 Bluestein 卷积核都取自同长度的 {@link FftPlan}，
+ * 本类只保留单精度的蝶形运算。
+ * 计划创建后不可变，可在多线程间共享，通过 {@link #get(int)} 获取缓存的实例；
+ * 缓存只保留最近使用的 16 个长度（LRU）。
+ *
+ * @author dabo
+ */
+public final class FloatFftPlan {
+
+    /**
+     * 计划缓存，key 为变换长度
+     */
+    private static final PlanCache<FloatFftPlan> sPlans = new PlanCache<FloatFftPlan>() {
+        @Override
+        protected FloatFftPlan create(int size) {
+            return new FloatFftPlan(size);
+        }
+    };
+
+    /**
+     * 变换长度
+     */
+    private final int mSize;
+
+    /**
+     * 算法类型
+     */
+    private final int mKind;
+
+    /**
+     * 旋转因子 exp(-2πik/n) 的实部与虚部
+     * 基2：k = 0 .. n/2-1；混合基：k = 0 .. n-1
+     */
+    private final float[] mCos;
+    private final float[] mSin;
+
+    /**
+     * 基2：位反转后需要交换的下标对，依次为 i0, j0, i1, j1 ...
+     */
+    private final int[] mSwaps;
+
+    /**
+     * 混合基：各级基数
+     */
+    private final int[] mFactors;
+
+    /**
+     * Bluestein：chirp 序列 exp(-πik²/n)
+     */
+    private final float[] mChirpRe;
+    private final float[] mChirpIm;
+    /**
+     * Bluestein：卷积核的频谱
+     */
+    private final float[] mFilterRe;
+    private final float[] mFilterIm;
+    /**
+     * Bluestein：卷积用的2的幂长度变换
+     */
+    private final FloatFftPlan mConvolutionPlan;
+
+    /**
+     * 混合基、Bluestein 使用的线程私有临时缓冲区
+     */
+    private final ThreadLocal<float[][]> mScratch = new ThreadLocal<float[][]>() {
+        @Override
+        protected float[][] initialValue() {
+            return createScratch();
+        }
+    };
+
+    private FloatFftPlan(int size) {
+        if (size <= 0) {
+            throw new IllegalArgumentException("n must be positive");
+        }
+        // 各表在双精度计划中算好后转为 float，Bluestein 卷积核的频谱也由双精度变换求得
+        FftPlan plan = FftPlan.get(size);
+        mSize = size;
+        mKind = plan.getKind();
+        mCos = toFloat(plan.getCos());
+        mSin = toFloat(plan.getSin());
+        mSwaps = plan.getSwaps();
+        mFactors = plan.getFactors();
+        mChirpRe = toFloat(plan.getChirpRe());
+        mChirpIm = toFloat(plan.getChirpIm());
+        mFilterRe = toFloat(plan.getFilterRe());
+        mFilterIm = toFloat(plan.getFilterIm());
+        mConvolutionPlan = mKind == FftPlan.BLUESTEIN ? get(plan.getConvolutionSize()) : null;
+    }
+
+    /**
+     * 双精度表转为单精度，null 原样返回
+     */
+    static float[] toFloat(double[] values) {
+        if (values == null) {
+            return null;
+        }
+        float[] result = new float[values.length];
+        for (int i = 0; i < values.length; i++) {
+            result[i] = (float) values[i];
+        }
+        return result;
+    }
+
+    /**
+     * 获取指定长度的变换计划，缓存中没有时计算
+     *
+     * @param size 变换长度
+     */
+    public static FloatFftPlan get(int size) {
+        return sPlans.get(size);
+    }
+
+    public int getSize() {
+        return mSize;
+    }
+
+    /**
+     * 原地正变换
+     *
+     * @param re 实部，只变换前 {@link #getSize()} 个元素
+     * @param im 虚部，只变换前 {@link #getSize()} 个元素
+     */
+    public void transform(float[] re, float[] im) {
+        if (re.length < mSize || im.length < mSize) {
+            throw new IllegalArgumentException("Dimensions don't agree");
+        }
+        switch (mKind) {
+            case FftPlan.RADIX_2:
+                transformRadix2(re, im);
+                break;
+            case FftPlan.MIXED_RADIX:
+                transformMixedRadix(re, im);
+                break;
+            default:
+                transformBluestein(re, im);
+                break;
+        }
+    }
+
+    /**
+     * 原地逆变换，结果已除以 n
+     */
+    public void inverse(float[] re, float[] im) {
+        int n = mSize;
+        // 共轭 -> 正变换 -> 共轭
+        for (int i = 0; i < n; i++) {
+            im[i] = -im[i];
+        }
+        transform(re, im);
+        float scale = 1.0f / n;
+        for (int i = 0; i < n; i++) {
+            re[i] *= scale;
+            im[i] = -im[i] * scale;
+        }
+    }
+
+    // ---------------------------------------------------------------- 基2
+
+    private void transformRadix2(float[] re, float[] im) {
+        int n = mSize;
+        int[] swaps = mSwaps;
+        for (int s = 0; s < swaps.length; s += 2) {
+            int i = swaps[s];
+            int j = swaps[s + 1];
+            float t = re[i];
+            re[i] = re[j];
+            re[j] = t;
+            t = im[i];
+            im[i] = im[j];
+            im[j] = t;
+        }
+
+        float[] cos = mCos;
+        float[] sin = mSin;
+        for (int len = 2, step = n >> 1; len <= n; len <<= 1, step >>= 1) {
+            int half = len >> 1;
+            for (int k = 0, w = 0; k < half; k++, w += step) {
+                float wr = cos[w];
+                float wi = sin[w];
+                for (int i = k; i < n; i += len) {
+                    int j = i + half;
+                    float tr = wr * re[j] - wi * im[j];
+                    float ti = wr * im[j] + wi * re[j];
+                    re[j] = re[i] - tr;
+                    im[j] = im[i] - ti;
+                    re[i] += tr;
+                    im[i] += ti;
+                }
+            }
+        }
+    }
+
+    // ---------------------------------------------------------------- 混合基
+
+    private void transformMixedRadix(float[] re, float[] im) {
+        float[][] scratch = mScratch.get();
+        float[] inRe = scratch[0];
+        float[] inIm = scratch[1];
+        System.arraycopy(re, 0, inRe, 0, mSize);
+        System.arraycopy(im, 0, inIm, 0, mSize);
+        mixedRadix(inRe, inIm, 0, 1, re, im, 0, 0, scratch[2], scratch[3]);
+    }
+
+    /**
+     * 递归的混合基时域抽取：先把 p 个子序列的变换依次写到输出的 p 段中，
+     * 再对每个频点做一次 p 点蝶形合并
+     *
+     * @param stride      当前子序列在输入中的步长，即已处理各级基数之积
+     * @param factorIndex 当前级的基数下标
+     */
+    private void mixedRadix(float[] inRe, float[] inIm, int inOff, int stride,
+                            float[] outRe, float[] outIm, int outOff, int factorIndex,
+                            float[] tRe, float[] tIm) {
+        int n = mSize;
+        int p = mFactors[factorIndex];
+        int m = n / stride / p;
+
+        if (m == 1) {
+            for (int q = 0, i = inOff; q < p; q++, i += stride) {
+                outRe[outOff + q] = inRe[i];
+                outIm[outOff + q] = inIm[i];
+            }
+        } else {
+            for (int q = 0; q < p; q++) {
+                mixedRadix(inRe, inIm, inOff + q * stride, stride * p,
+                        outRe, outIm, outOff + q * m, factorIndex + 1, tRe, tIm);
+            }
+        }
+
+        float[] cos = mCos;
+        float[] sin = mSin;
+        for (int u = 0; u < m; u++) {
+            for (int q = 0, k = outOff + u; q < p; q++, k += m) {
+                tRe[q] = outRe[k];
+                tIm[q] = outIm[k];
+            }
+            for (int q1 = 0, k = u; q1 < p; q1++, k += m) {
+                float sumRe = tRe[0];
+                float sumIm = tIm[0];
+                int step = stride * k % n;
+                int w = 0;
+                for (int q = 1; q < p; q++) {
+                    w += step;
+                    if (w >= n) {
+                        w -= n;
+                    }
+                    sumRe += tRe[q] * cos[w] - tIm[q] * sin[w];
+                    sumIm += tRe[q] * sin[w] + tIm[q] * cos[w];
+                }
+                outRe[outOff + k] = sumRe;
+                outIm[outOff + k] = sumIm;
+            }
+        }
+    }
+
+    // ---------------------------------------------------------------- Bluestein
+
+    private void transformBluestein(float[] re, float[] im) {
+        int n = mSize;
+        int m = mConvolutionPlan.getSize();
+        float[][] scratch = mScratch.get();
+        float[] aRe = scratch[0];
+        float[] aIm = scratch[1];
+        float[] wRe = mChirpRe;
+        float[] wIm = mChirpIm;
+
+        // a[k] = x[k] * w[k]，其余补零
+        for (int k = 0; k < n; k++) {
+            aRe[k] = re[k] * wRe[k] - im[k] * wIm[k];
+            aIm[k] = re[k] * wIm[k] + im[k] * wRe[k];
+        }
+        for (int k = n; k < m; k++) {
+            aRe[k] = 0;
+            aIm[k] = 0;
+        }
+
+        // 与 conj(w) 做循环卷积
+        mConvolutionPlan.transform(aRe, aIm);
+        float[] bRe = mFilterRe;
+        float[] bIm = mFilterIm;
+        for (int k = 0; k < m; k++) {
+            float r = aRe[k] * bRe[k] - aIm[k] * bIm[k];
+            aIm[k] = aRe[k] * bIm[k] + aIm[k] * bRe[k];
+            aRe[k] = r;
+        }
+        mConvolutionPlan.inverse(aRe, aIm);
+
+        // X[k] = w[k] * (a * b)[k]
+        for (int k = 0; k < n; k++) {
+            re[k] = aRe[k] * wRe[k] - aIm[k] * wIm[k];
+            im[k] = aRe[k] * wIm[k] + aIm[k] * wRe[k];
+        }
+    }
+
+    private float[][] createScratch() {
+        if (mKind == FftPlan.MIXED_RADIX) {
+            return new float[][]{new float[mSize], new float[mSize], new float[5], new float[5]};
+        }
+        int m = mConvolutionPlan.getSize();
+        return new float[][]{new float[m], new float[m]};
+    }
+}
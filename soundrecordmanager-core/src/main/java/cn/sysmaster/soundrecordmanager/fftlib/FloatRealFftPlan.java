@@ -0,0 +1,167 @@
+package cn.sysmaster.soundrecordmanager.fftlib;
+
+import java.util.Arrays;
+
+/**
+ * 单精度实数输入的 FFT 变换计划
+ * <p>
+ * 与 {@link RealFftPlan} 算法相同，数据使用 float；拆分用的旋转因子取自同长度的 {@link RealFftPlan}。
+ * 计划不可变，可在多线程间共享；缓存只保留最近使用的 16 个长度（LRU）。
+ *
+ * @author dabo
+ */
+public final class FloatRealFftPlan {
+
+    /**
+     * 计划缓存，key 为实数序列长度
+     */
+    private static final PlanCache<FloatRealFftPlan> sPlans = new PlanCache<FloatRealFftPlan>() {
+        @Override
+        protected FloatRealFftPlan create(int size) {
+            return new FloatRealFftPlan(size);
+        }
+    };
+
+    /**
+     * 实数序列长度 N
+     */
+    private final int mSize;
+
+    /**
+     * N/2 点复数变换计划；N 为奇数时为 N 点复数变换计划
+     */
+    private final FloatFftPlan mHalfPlan;
+
+    /**
+     * N 为奇数时使用的线程私有临时缓冲区
+     */
+    private final ThreadLocal<float[][]> mScratch = new ThreadLocal<float[][]>() {
+        @Override
+        protected float[][] initialValue() {
+            return new float[][]{new float[mSize], new float[mSize]};
+        }
+    };
+
+    /**
+     * 拆分用旋转因子 exp(-2πik/N)，k = 0 .. N/4
+     */
+    private final float[] mCos;
+    private final float[] mSin;
+
+    private FloatRealFftPlan(int size) {
+        if (size <= 0) {
+            throw new IllegalArgumentException("n must be positive");
+        }
+        mSize = size;
+        mHalfPlan = FloatFftPlan.get(isOdd() ? size : size >> 1);
+
+        RealFftPlan plan = RealFftPlan.get(size);
+        mCos = FloatFftPlan.toFloat(plan.getCos());
+        mSin = FloatFftPlan.toFloat(plan.getSin());
+    }
+
+    /**
+     * 获取指定长度的实数变换计划，缓存中没有时计算
+     *
+     * @param size 实数序列长度
+     */
+    public static FloatRealFftPlan get(int size) {
+        return sPlans.get(size);
+    }
+
+    public int getSize() {
+        return mSize;
+    }
+
+    private boolean isOdd() {
+        return (mSize & 1) != 0;
+    }
+
+    /**
+     * 输出的频点数 N/2+1
+     */
+    public int getBinCount() {
+        return (mSize >> 1) + 1;
+    }
+
+    /**
+     * 实数正变换
+     *
+     * @param x  输入的实数序列，读取前 N 个点
+     * @param re 输出频谱实部，长度至少 N/2+1
+     * @param im 输出频谱虚部，长度至少 N/2+1
+     */
+    public void transform(float[] x, float[] re, float[] im) {
+        int m = mSize >> 1;
+        if (x.length < mSize || re.length <= m || im.length <= m) {
+            throw new IllegalArgumentException("Dimensions don't agree");
+        }
+        if (isOdd()) {
+            transformOdd(x, re, im);
+            return;
+        }
+        // 打包：z[k] = x[2k] + i * x[2k+1]
+        for (int k = 0; k < m; k++) {
+            re[k] = x[2 * k];
+            im[k] = x[2 * k + 1];
+        }
+        mHalfPlan.transform(re, im);
+
+        // 拆分：X[k] = E[k] + W^k * O[k]，X[m-k] = conj(E[k] - W^k * O[k])
+        float r0 = re[0];
+        float i0 = im[0];
+        re[0] = r0 + i0;
+        im[0] = 0;
+        re[m] = r0 - i0;
+        im[m] = 0;
+
+        float[] cos = mCos;
+        float[] sin = mSin;
+        for (int k = 1, end = m >> 1; k <= end; k++) {
+            int j = m - k;
+            float ar = re[k];
+            float ai = im[k];
+            float br = re[j];
+            float bi = im[j];
+
+            float er = (ar + br) * 0.5f;
+            float ei = (ai - bi) * 0.5f;
+            float or = (ai + bi) * 0.5f;
+            float oi = (br - ar) * 0.5f;
+
+            float tr = cos[k] * or - sin[k] * oi;
+            float ti = cos[k] * oi + sin[k] * or;
+
+            re[k] = er + tr;
+            im[k] = ei + ti;
+            re[j] = er - tr;
+            im[j] = ti - ei;
+        }
+    }
+
+    private void transformOdd(float[] x, float[] re, float[] im) {
+        float[][] scratch = mScratch.get();
+        float[] fullRe = scratch[0];
+        float[] fullIm = scratch[1];
+        System.arraycopy(x, 0, fullRe, 0, mSize);
+        Arrays.fill(fullIm, 0);
+        mHalfPlan.transform(fullRe, fullIm);
+        int count = getBinCount();
+        System.arraycopy(fullRe, 0, re, 0, count);
+        System.arraycopy(fullIm, 0, im, 0, count);
+    }
+
+    /**
+     * 计算实数序列的 N/2+1 个频点幅度
+     *
+     * @param x     输入的实数序列
+     * @param scale 幅度缩放系数
+     * @param re    工作缓冲区，长度至少 N/2+1
+     * @param im    工作缓冲区，长度至少 N/2+1
+     * @param out   输出，写入前 min(out.length, N/2+1) 个频点
+     */
+    public void magnitude(float[] x, float scale, float[] re, float[] im, float[] out) {
+        transform(x, re, im);
+        FftEngine.magnitude(re, im, scale, out, Math.min(out.length, getBinCount()));
+    }
+}
@@ -0,0 +1,45 @@
+package cn.sysmaster.soundrecordmanager.fftlib;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * 变换计划的 LRU 缓存，key 为变换长度
+ * <p>
+ * 最多保留 {@link #CAPACITY} 个长度，超出时淘汰最久未使用的计划，
+ * 不断变换长度的调用方不会让旋转因子表无限增长。被淘汰的计划仍被持有时可以继续使用，
+ * 之后再次获取该长度时重新计算。
+ *
+ * @author dabo
+ */
+abstract class PlanCache<V> {
+
+    /**
+     * 缓存的长度个数；一次 Bluestein 变换占用两个
+     */
+    static final int CAPACITY = 16;
+
+    private final Map<Integer, V> mPlans = new LinkedHashMap<Integer, V>(CAPACITY * 2, 0.75f, true) {
+        @Override
+        protected boolean removeEldestEntry(Map.Entry<Integer, V> eldest) {
+            return size() > CAPACITY;
+        }
+    };
+
+    /**
+     * 获取指定长度的计划，不在缓存中时创建
+     */
+    synchronized V get(int size) {
+        V plan = mPlans.get(size);
+        if (plan == null) {
+            plan = create(size);
+            mPlans.put(size, plan);
+        }
+        return plan;
+    }
+
+    /**
+     * 创建计划，在缓存的锁内调用，可以再获取其他长度的计划
+     */
+    protected abstract V create(int size);
+}
@@ -0,0 +1,185 @@
+package cn.sysmaster.soundrecordmanager.fftlib;
+
+import java.util.Arrays;
+
+/**
+ * 实数输入的 FFT 变换计划
+ * <p>
+ * 把 N 个实数采样两两打包成 N/2 个复数（偶数点为实部，奇数点为虚部），
+ * 做一次 N/2 点复数变换后再拆分，得到 N/2+1 个非冗余频点。
+ * 计算量约为直接做 N 点复数变换的一半。N 为奇数时退化为 N 点复数变换。
+ * 计划不可变，可在多线程间共享；缓存只保留最近使用的 16 个长度（LRU）。
+ *
+ * @author dabo
+ */
+public final class RealFftPlan {
+
+    /**
+     * 计划缓存，key 为实数序列长度
+     */
+    private static final PlanCache<RealFftPlan> sPlans = new PlanCache<RealFftPlan>() {
+        @Override
+        protected RealFftPlan create(int size) {
+            return new RealFftPlan(size);
+        }
+    };
+
+    /**
+     * 实数序列长度 N
+     */
+    private final int mSize;
+
+    /**
+     * N/2 点复数变换计划；N 为奇数时为 N 点复数变换计划
+     */
+    private final FftPlan mHalfPlan;
+
+    /**
+     * N 为奇数时使用的线程私有临时缓冲区
+     */
+    private final ThreadLocal<double[][]> mScratch = new ThreadLocal<double[][]>() {
+        @Override
+        protected double[][] initialValue() {
+            return new double[][]{new double[mSize], new double[mSize]};
+        }
+    };
+
+    /**
+     * 拆分用旋转因子 exp(-2πik/N)，k = 0 .. N/4
+     */
+    private final double[] mCos;
+    private final double[] mSin;
+
+    private RealFftPlan(int size) {
+        if (size <= 0) {
+            throw new IllegalArgumentException("n must be positive");
+        }
+        mSize = size;
+        mHalfPlan = FftPlan.get(isOdd() ? size : size >> 1);
+
+        int count = (size >> 2) + 1;
+        mCos = new double[count];
+        mSin = new double[count];
+        for (int k = 0; k < count; k++) {
+            double theta = -2 * Math.PI * k / size;
+            mCos[k] = Math.cos(theta);
+            mSin[k] = Math.sin(theta);
+        }
+    }
+
+    /**
+     * 获取指定长度的实数变换计划，缓存中没有时计算
+     *
+     * @param size 实数序列长度
+     */
+    public static RealFftPlan get(int size) {
+        return sPlans.get(size);
+    }
+
+    public int getSize() {
+        return mSize;
+    }
+
+    /**
+     * 拆分用旋转因子，供 FloatRealFftPlan 复用，调用方不得修改
+     */
+    double[] getCos() {
+        return mCos;
+    }
+
+    double[] getSin() {
+        return mSin;
+    }
+
+    private boolean isOdd() {
+        return (mSize & 1) != 0;
+    }
+
+    /**
+     * 输出的频点数 N/2+1
+     */
+    public int getBinCount() {
+        return (mSize >> 1) + 1;
+    }
+
+    /**
+     * 实数正变换
+     *
+     * @param x  输入的实数序列，读取前 N 个点
+     * @param re 输出频谱实部，长度至少 N/2+1
+     * @param im 输出频谱虚部，长度至少 N/2+1
+     */
+    public void transform(double[] x, double[] re, double[] im) {
+        int m = mSize >> 1;
+        if (x.length < mSize || re.length <= m || im.length <= m) {
+            throw new IllegalArgumentException("Dimensions don't agree");
+        }
+        if (isOdd()) {
+            transformOdd(x, re, im);
+            return;
+        }
+        // 打包：z[k] = x[2k] + i * x[2k+1]
+        for (int k = 0; k < m; k++) {
+            re[k] = x[2 * k];
+            im[k] = x[2 * k + 1];
+        }
+        mHalfPlan.transform(re, im);
+
+        // 拆分：X[k] = E[k] + W^k * O[k]，X[m-k] = conj(E[k] - W^k * O[k])
+        double r0 = re[0];
+        double i0 = im[0];
+        re[0] = r0 + i0;
+        im[0] = 0;
+        re[m] = r0 - i0;
+        im[m] = 0;
+
+        double[] cos = mCos;
+        double[] sin = mSin;
+        for (int k = 1, end = m >> 1; k <= end; k++) {
+            int j = m - k;
+            double ar = re[k];
+            double ai = im[k];
+            double br = re[j];
+            double bi = im[j];
+
+            double er = (ar + br) * 0.5;
+            double ei = (ai - bi) * 0.5;
+            double or = (ai + bi) * 0.5;
+            double oi = (br - ar) * 0.5;
+
+            double tr = cos[k] * or - sin[k] * oi;
+            double ti = cos[k] * oi + sin[k] * or;
+
+            re[k] = er + tr;
+            im[k] = ei + ti;
+            re[j] = er - tr;
+            im[j] = ti - ei;
+        }
+    }
+
+    private void transformOdd(double[] x, double[] re, double[] im) {
+        double[][] scratch = mScratch.get();
+        double[] fullRe = scratch[0];
+        double[] fullIm = scratch[1];
+        System.arraycopy(x, 0, fullRe, 0, mSize);
+        Arrays.fill(fullIm, 0);
+        mHalfPlan.transform(fullRe, fullIm);
+        int count = getBinCount();
+        System.arraycopy(fullRe, 0, re, 0, count);
+        System.arraycopy(fullIm, 0, im, 0, count);
+    }
+
+    /**
+     * 计算实数序列的 N/2+1 个频点幅度
+     *
+     * @param x     输入的实数序列
+     * @param scale 幅度缩放系数
+     * @param re    工作缓冲区，长度至少 N/2+1
+     * @param im    工作缓冲区，长度至少 N/2+1
+     * @param out   输出，写入前 min(out.length, N/2+1) 个频点
+     */
+    public void magnitude(double[] x, double scale, double[] re, double[] im, double[] out) {
+        transform(x, re, im);
+        FftEngine.magnitude(re, im, scale, out, Math.min(out.length, getBinCount()));
+    }
+}
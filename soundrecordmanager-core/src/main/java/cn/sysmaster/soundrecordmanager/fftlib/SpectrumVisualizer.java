@@ -0,0 +1,109 @@
+package cn.sysmaster.soundrecordmanager.fftlib;
+
+/**
+ * 把幅度谱压缩成 128 字节的可视化数据，并据此估算音量
+ * <p>
+ * 内部缓冲区重复使用，非线程安全。
+ *
+ * @author dabo
+ */
+public class SpectrumVisualizer {
+
+    /**
+     * 可视化数据长度
+     */
+    public static final int SIZE = 128;
+
+    /**
+     * 可视化数据缓冲区，重复使用避免每帧分配
+     */
+    private final double[] mVisual = new double[SIZE];
+
+    /**
+     * 频谱转换为可视化数据
+     *
+     * @param spectrum 幅度谱
+     * @param binCount 有效频点数
+     */
+    public byte[] makeData(double[] spectrum, int binCount) {
+        try {
+            //start
+            double[] newFft = mVisual;
+            for (int i = 16; i < 16 + newFft.length; i++) {
+                double value = i < binCount ? spectrum[i] * 62 : 0;
+                if (i < 24) {
+                    newFft[i - 16] = value * 0.2;
+                } else if (i < 36) {
+                    newFft[i - 16] = value * 0.4;
+                } else if (i < 48) {
+                    newFft[i - 16] = value * 0.6;
+                } else {
+                    newFft[i - 16] = value;
+                }
+                if (newFft[i - 16] < 10 * 128) {
+                    newFft[i - 16] = newFft[i - 16] * 0.6;
+                }
+            }
+            double[] fft = newFft;
+            //end
+            int step = fft.length / 128;
+            byte[] fftBytes = new byte[128];
+
+            //压缩128基准
+            int scale = 128;
+            double max = getMax(fft);
+            //高音优化
+            if (max > 128 * 128) {
+                scale = (int) (max / 128) + 2;
+            }
+
+            for (int i = 0; i < fftBytes.length; i++) {
+                double tmp = fft[i * step] / scale;
+                if (tmp > 127) {
+                    fftBytes[i] = 127;
+                } else if (tmp < -128) {
+                    fftBytes[i] = -127;
+
+                } else {
+                    fftBytes[i] = (byte) tmp;
+                }
+            }
+            return fftBytes;
+        } catch (Exception e) {
+            e.printStackTrace();
+        }
+        return null;
+    }
+
+    private static double getMax(double[] data) {
+        double max = 0;
+        for (int i = 0; i < data.length; i++) {
+            if (data[i] > max) {
+                max = data[i];
+            }
+        }
+
+        return max;
+    }
+
+    /**
+     * 根据可视化数据估算音量
+     *
+     * @param data {@link #makeData(double[], int)} 的结果
+     * @deprecated 结果受可视化数据的缩放与截断影响，录音引擎改用原始 PCM 的
+     * {@link cn.sysmaster.soundrecordmanager.core.LevelMeter}
+     */
+    @Deprecated
+    public static int getDb(byte[] data) {
+        double sum = 0;
+        double ave;
+        int length = data.length > 128 ? 128 : data.length;
+        for (int i = 0; i < length; i++) {
+            sum += data[i];
+        }
+        ave = sum / length;
+        sum += (Math.pow(ave, 4) / Math.pow((128F - ave), 2));
+        int i = (int) (Math.log10((sum / length) * 53536F) * 10);
+        return i < 0 ? 27 : i;
+    }
+}
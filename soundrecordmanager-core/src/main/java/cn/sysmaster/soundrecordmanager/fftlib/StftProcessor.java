@@ -0,0 +1,259 @@
+package cn.sysmaster.soundrecordmanager.fftlib;
+
+import java.util.Arrays;
+
+/**
+ * 流式短时傅里叶变换（STFT）
+ * <p>
+ * 不断写入 PCM 数据，内部用环形缓冲区保存最近 frameSize 个采样点，
+ * 每累计 hopSize 个新采样点就对最近一帧加窗并做一次实数 FFT，
+ * 通过 {@link OnSpectrumListener} 输出幅度谱。帧可以跨越多次 write，
+ * 因此输出帧率只取决于 采样率 / hopSize，与每次读取的缓冲区大小无关。
+ * <p>
+ * 可选单精度计算（{@link FftPrecision#FLOAT}），此时采样缓冲区、窗和 FFT 均使用 float，
+ * 只有输出的幅度谱仍为 double。
+ * <p>
+ * 非线程安全，write 与回调在同一线程执行，运行期间不分配内存。
+ *
+ * @author dabo
+ */
+public class StftProcessor {
+
+    /**
+     * 频谱回调
+     */
+    public interface OnSpectrumListener {
+        /**
+         * @param magnitude 幅度谱，数组会被复用，只在回调内有效
+         * @param binCount  有效频点数 frameSize/2+1
+         */
+        void onSpectrum(double[] magnitude, int binCount);
+    }
+
+    private final int mFrameSize;
+    private final int mHopSize;
+    private final int mChannels;
+    private final int mSampleBits;
+
+    private final int mBinCount;
+    /**
+     * 幅度归一化系数 2 / sum(window)
+     */
+    private final double mScale;
+
+    private int mRingPos;
+    private int mRingAvailable;
+    private int mSinceLastFrame;
+
+    /**
+     * 上一次 write 末尾不足一个采样帧（所有声道）的字节，与下一次 write 的开头拼接
+     */
+    private final byte[] mPending;
+    private int mPendingLength;
+
+    /**
+     * 双精度：变换计划、窗、采样环形缓冲区和工作缓冲区
+     */
+    private RealFftPlan mPlan;
+    private double[] mWindow;
+    private double[] mRing;
+    private double[] mFrame;
+    private double[] mRe;
+    private double[] mIm;
+
+    /**
+     * 单精度：变换计划、窗、采样环形缓冲区和工作缓冲区
+     */
+    private FloatRealFftPlan mFloatPlan;
+    private float[] mFloatWindow;
+    private float[] mFloatRing;
+    private float[] mFloatFrame;
+    private float[] mFloatRe;
+    private float[] mFloatIm;
+
+    private final double[] mMagnitude;
+
+    private OnSpectrumListener mOnSpectrumListener;
+
+    /**
+     * @param frameSize  帧长（采样点数），任意长度
+     * @param hopSize    帧移（采样点数）
+     * @param window     窗函数
+     * @param channels   声道数，多声道时取平均
+     * @param sampleBits 采样位宽，8 或 16
+     */
+    public StftProcessor(int frameSize, int hopSize, WindowFunction window, int channels, int sampleBits) {
+        this(frameSize, hopSize, window, channels, sampleBits, FftPrecision.DOUBLE);
+    }
+
+    /**
+     * @param frameSize  帧长（采样点数），任意长度
+     * @param hopSize    帧移（采样点数）
+     * @param window     窗函数
+     * @param channels   声道数，多声道时取平均
+     * @param sampleBits 采样位宽，8 或 16
+     * @param precision  计算精度
+     */
+    public StftProcessor(int frameSize, int hopSize, WindowFunction window, int channels, int sampleBits,
+                         FftPrecision precision) {
+        if (hopSize <= 0) {
+            throw new IllegalArgumentException("hopSize must be positive");
+        }
+        if (channels <= 0 || (sampleBits != 8 && sampleBits != 16)) {
+            throw new IllegalArgumentException("unsupported pcm format");
+        }
+        mFrameSize = frameSize;
+        mHopSize = hopSize;
+        mChannels = channels;
+        mSampleBits = sampleBits;
+        mPending = new byte[channels * sampleBits / 8];
+
+        double[] coefficients = window.create(frameSize);
+        double sum = 0;
+        for (double w : coefficients) {
+            sum += w;
+        }
+        mScale = 2 / sum;
+
+        if (precision == FftPrecision.FLOAT) {
+            mFloatPlan = FloatRealFftPlan.get(frameSize);
+            mBinCount = mFloatPlan.getBinCount();
+            mFloatWindow = window.createFloat(frameSize);
+            mFloatRing = new float[frameSize];
+            mFloatFrame = new float[frameSize];
+            mFloatRe = new float[mBinCount];
+            mFloatIm = new float[mBinCount];
+        } else {
+            mPlan = RealFftPlan.get(frameSize);
+            mBinCount = mPlan.getBinCount();
+            mWindow = coefficients;
+            mRing = new double[frameSize];
+            mFrame = new double[frameSize];
+            mRe = new double[mBinCount];
+            mIm = new double[mBinCount];
+        }
+        mMagnitude = new double[mBinCount];
+    }
+
+    public void setOnSpectrumListener(OnSpectrumListener listener) {
+        mOnSpectrumListener = listener;
+    }
+
+    public int getFrameSize() {
+        return mFrameSize;
+    }
+
+    public int getHopSize() {
+        return mHopSize;
+    }
+
+    public int getBinCount() {
+        return mBinCount;
+    }
+
+    /**
+     * 清空缓冲区，下一帧需要重新攒满 frameSize 个采样点
+     */
+    public void reset() {
+        if (mRing != null) {
+            Arrays.fill(mRing, 0);
+        } else {
+            Arrays.fill(mFloatRing, 0);
+        }
+        mRingPos = 0;
+        mRingAvailable = 0;
+        mSinceLastFrame = 0;
+        mPendingLength = 0;
+    }
+
+    /**
+     * 写入 PCM 数据（小端，多声道交错）
+     * <p>
+     * length 不必按采样帧对齐，末尾不足一帧的字节保留到下一次 write
+     *
+     * @param data   数据
+     * @param offset 起始位置
+     * @param length 字节数
+     */
+    public void write(byte[] data, int offset, int length) {
+        int frameBytes = mPending.length;
+        int end = offset + length;
+        if (mPendingLength > 0) {
+            int count = Math.min(frameBytes - mPendingLength, length);
+            System.arraycopy(data, offset, mPending, mPendingLength, count);
+            mPendingLength += count;
+            offset += count;
+            if (mPendingLength < frameBytes) {
+                return;
+            }
+            push(decode(mPending, 0));
+            mPendingLength = 0;
+        }
+        int last = end - frameBytes;
+        for (; offset <= last; offset += frameBytes) {
+            push(decode(data, offset));
+        }
+        mPendingLength = end - offset;
+        System.arraycopy(data, offset, mPending, 0, mPendingLength);
+    }
+
+    /**
+     * @return 一个采样帧各声道的平均值，16bit 幅度
+     */
+    private double decode(byte[] data, int offset) {
+        int bytesPerSample = mSampleBits / 8;
+        double sum = 0;
+        for (int c = 0, p = offset; c < mChannels; c++, p += bytesPerSample) {
+            if (bytesPerSample == 2) {
+                sum += (short) ((data[p] & 0xff) | ((data[p + 1] & 0xff) << 8));
+            } else {
+                // 8bit pcm 为无符号，换算到16bit的幅度
+                sum += ((data[p] & 0xff) - 128) << 8;
+            }
+        }
+        return mChannels == 1 ? sum : sum / mChannels;
+    }
+
+    private void push(double sample) {
+        if (mRing != null) {
+            mRing[mRingPos] = sample;
+        } else {
+            mFloatRing[mRingPos] = (float) sample;
+        }
+        mRingPos = mRingPos + 1 == mFrameSize ? 0 : mRingPos + 1;
+        if (mRingAvailable < mFrameSize) {
+            mRingAvailable++;
+        }
+        mSinceLastFrame++;
+        if (mRingAvailable == mFrameSize && mSinceLastFrame >= mHopSize) {
+            mSinceLastFrame = 0;
+            analyze();
+        }
+    }
+
+    private void analyze() {
+        // 环形缓冲区中最旧的采样点在 mRingPos
+        int head = mFrameSize - mRingPos;
+        if (mRing != null) {
+            for (int i = 0; i < head; i++) {
+                mFrame[i] = mRing[mRingPos + i] * mWindow[i];
+            }
+            for (int i = head; i < mFrameSize; i++) {
+                mFrame[i] = mRing[i - head] * mWindow[i];
+            }
+            mPlan.magnitude(mFrame, mScale, mRe, mIm, mMagnitude);
+        } else {
+            for (int i = 0; i < head; i++) {
+                mFloatFrame[i] = mFloatRing[mRingPos + i] * mFloatWindow[i];
+            }
+            for (int i = head; i < mFrameSize; i++) {
+                mFloatFrame[i] = mFloatRing[i - head] * mFloatWindow[i];
+            }
+            mFloatPlan.transform(mFloatFrame, mFloatRe, mFloatIm);
+            FftEngine.magnitude(mFloatRe, mFloatIm, mScale, mMagnitude, mBinCount);
+        }
+        if (mOnSpectrumListener != null) {
+            mOnSpectrumListener.onSpectrum(mMagnitude, mBinCount);
+        }
+    }
+}
@@ -0,0 +1,66 @@
+package cn.sysmaster.soundrecordmanager.fftlib;
+
+/**
+ * 窗函数，用于减少分帧做 FFT 时的频谱泄漏
+ *
+ * @author dabo
+ */
+public enum WindowFunction {
+    /**
+     * 矩形窗，即不加窗
+     */
+    RECTANGLE,
+    /**
+     * 汉宁窗
+     */
+    HANN,
+    /**
+     * 汉明窗
+     */
+    HAMMING,
+    /**
+     * 布莱克曼窗
+     */
+    BLACKMAN;
+
+    /**
+     * 生成窗系数（周期形式，适合频谱分析）
+     *
+     * @param size 窗长
+     */
+    public double[] create(int size) {
+        double[] w = new double[size];
+        for (int i = 0; i < size; i++) {
+            double x = 2 * Math.PI * i / size;
+            switch (this) {
+                case HANN:
+                    w[i] = 0.5 - 0.5 * Math.cos(x);
+                    break;
+                case HAMMING:
+                    w[i] = 0.54 - 0.46 * Math.cos(x);
+                    break;
+                case BLACKMAN:
+                    w[i] = 0.42 - 0.5 * Math.cos(x) + 0.08 * Math.cos(2 * x);
+                    break;
+                default:
+                    w[i] = 1;
+                    break;
+            }
+        }
+        return w;
+    }
+
+    /**
+     * 生成单精度窗系数
+     *
+     * @param size 窗长
+     */
+    public float[] createFloat(int size) {
+        double[] w = create(size);
+        float[] result = new float[size];
+        for (int i = 0; i < size; i++) {
+            result[i] = (float) w[i];
+        }
+        return result;
+    }
+}
@@ -0,0 +1,27 @@
+package cn.sysmaster.soundrecordmanager.listener;
+
+/**
+ * @author sysmaster
+ * @date 2019/4/14
+ * @describe 录音计时监听
+ */
+public interface OnRecordCountDownTimerListener {
+    /**
+     * 计时回调监听，每录满一秒回调一次，用于计时显示
+     * <p>
+     * 按已写入的采样数计时，暂停期间不回调；未限制最大时长时不回调，已录时长可通过 getRecordedTime 读取
+     *
+     * @param millis 剩余时长，毫秒
+     */
+    void onTick(long millis);
+
+    /**
+     * 录满最大时长，录音已在该采样处截断并停止
+     */
+    void onFinish();
+
+    /**
+     * 停止时未达到最小时长，结果文件已删除
+     */
+    void onNotEnough();
+}
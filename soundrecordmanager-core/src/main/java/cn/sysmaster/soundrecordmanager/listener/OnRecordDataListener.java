@@ -0,0 +1,19 @@
+package cn.sysmaster.soundrecordmanager.listener;
+
+/**
+ * @author zhaolewei on 2018/7/11.
+ * @deprecated 每次回调都要复制出一个恰好等长的数组，请使用 {@link OnRecordDataRangeListener}
+ */
+@Deprecated
+public interface OnRecordDataListener {
+
+    /**
+     * 录制中的音频数据
+     * <p>
+     * data 是本次数据的独立副本，长度即本次数据的字节数，可以直接保留。
+     *
+     * @param data 当前音频数据
+     */
+    void onData(byte[] data);
+
+}
@@ -0,0 +1,22 @@
+package cn.sysmaster.soundrecordmanager.listener;
+
+/**
+ * 录制中的音频数据监听，直接回调帧缓冲区，不做复制
+ *
+ * @author dabo
+ */
+public interface OnRecordDataRangeListener {
+
+    /**
+     * 录制中的音频数据
+     * <p>
+     * data 来自帧池（同线程回调时为帧队列中的缓冲区），长度是固定的帧大小，只有 [offset, offset + length) 是本次数据，
+     * 之后的字节是之前的数据残留。data 只在本次回调期间有效，回调返回后会被后续数据复用；需要保留时请按 length 复制。
+     *
+     * @param data   音频数据所在的缓冲区
+     * @param offset 本次数据的起始位置
+     * @param length 本次数据的字节数
+     */
+    void onData(byte[] data, int offset, int length);
+
+}
@@ -0,0 +1,16 @@
+package cn.sysmaster.soundrecordmanager.listener;
+
+/**
+ * @author zhaolewei on 2018/7/11.
+ */
+public interface OnRecordSoundSizeListener {
+
+    /**
+     * 实时返回音量大小，由原始 PCM 计算，不需要注册频谱监听
+     *
+     * @param soundSize 当前音量大小：均方根电平高于 -96 dBFS 的分贝数，0 ~ 96，静音、暂停与停止时为 0；
+     *                  峰值与 dBFS 见 {@link cn.sysmaster.soundrecordmanager.core.LevelMeter}
+     */
+    void onSoundSize(int soundSize);
+
+}
@@ -0,0 +1,76 @@
+package cn.sysmaster.soundrecordmanager.source;
+
+import java.io.IOException;
+
+/**
+ * @author dabo
+ * @describe 音频数据源，输出 PCM 小端数据
+ * <p>
+ * 录音引擎只通过该接口取数据，Android 端由麦克风实现，JVM 端可以由文件或合成信号实现。
+ * 同一个数据源可以多次 start / stop（暂停、继续录音），release 之后不可再使用。
+ */
+public interface AudioSource {
+
+    /**
+     * @return 采样率 Hz
+     */
+    int getSampleRate();
+
+    /**
+     * @return 声道数
+     */
+    int getChannelCount();
+
+    /**
+     * @return 采样位宽 单位bit，8 或 16
+     */
+    int getSampleBits();
+
+    /**
+     * @return 建议的单次读取字节数
+     */
+    int getBufferSize();
+
+    /**
+     * 是否为实时数据源
+     * <p>
+     * 实时数据源（如麦克风）读取不能被阻塞，写文件跟不上时丢帧；
+     * 非实时数据源（文件、合成信号）在写文件跟不上时等待，不丢数据。
+     */
+    boolean isRealtime();
+
+    /**
+     * 预先打开数据源但不开始采集，减少 start 到读到第一块数据的耗时；可不调用，start 时会自动打开
+     *
+     * @throws IOException 数据源无法打开
+     */
+    void prepare() throws IOException;
+
+    /**
+     * 开始采集
+     *
+     * @throws IOException 数据源无法打开
+     */
+    void start() throws IOException;
+
+    /**
+     * 阻塞读取 PCM 数据
+     *
+     * @param buffer 目标数组
+     * @param offset 起始位置
+     * @param length 最多读取的字节数
+     * @return 实际读取的字节数，数据源结束时返回 -1
+     * @throws IOException 读取失败
+     */
+    int read(byte[] buffer, int offset, int length) throws IOException;
+
+    /**
+     * 停止采集，之后可以再次 start
+     */
+    void stop();
+
+    /**
+     * 释放资源
+     */
+    void release();
+}
@@ -0,0 +1,120 @@
+package cn.sysmaster.soundrecordmanager.source;
+
+import java.io.IOException;
+
+/**
+ * @author dabo
+ * @describe 非实时数据源的公共部分：音频格式与可选的实时节奏控制
+ * <p>
+ * 默认不限速，read 立即返回，数据源可以远快于实时运行，用于压测与离线处理；
+ * {@link #setRealtime(boolean)} 后按采样时钟限速，模拟麦克风的读取节奏。
+ */
+public abstract class BaseAudioSource implements AudioSource {
+
+    /**
+     * 默认单次读取 20ms 数据
+     */
+    private static final int DEFAULT_BUFFER_MILLIS = 20;
+
+    protected final int mSampleRate;
+    protected final int mChannelCount;
+    protected final int mSampleBits;
+    protected final int mFrameBytes;
+    protected int mBufferSize;
+
+    /**
+     * 是否按实时速度输出
+     */
+    private volatile boolean mRealtime = false;
+    /**
+     * 本次 start 后输出的字节数，用于实时限速
+     */
+    private long mPacedBytes;
+    private long mPaceStartNanos;
+
+    protected BaseAudioSource(int sampleRate, int channelCount, int sampleBits) {
+        if (sampleRate <= 0 || channelCount <= 0 || (sampleBits != 8 && sampleBits != 16)) {
+            throw new IllegalArgumentException("unsupported format: " + sampleRate + "Hz, "
+                    + channelCount + "ch, " + sampleBits + "bit");
+        }
+        this.mSampleRate = sampleRate;
+        this.mChannelCount = channelCount;
+        this.mSampleBits = sampleBits;
+        this.mFrameBytes = channelCount * sampleBits / 8;
+        this.mBufferSize = Math.max(1, sampleRate * DEFAULT_BUFFER_MILLIS / 1000) * mFrameBytes;
+    }
+
+    @Override
+    public int getSampleRate() {
+        return mSampleRate;
+    }
+
+    @Override
+    public int getChannelCount() {
+        return mChannelCount;
+    }
+
+    @Override
+    public int getSampleBits() {
+        return mSampleBits;
+    }
+
+    @Override
+    public int getBufferSize() {
+        return mBufferSize;
+    }
+
+    /**
+     * @param bufferSize 单次读取字节数，按帧对齐
+     */
+    public void setBufferSize(int bufferSize) {
+        this.mBufferSize = Math.max(mFrameBytes, bufferSize - bufferSize % mFrameBytes);
+    }
+
+    /**
+     * @param realtime true：按采样率限速；false：尽可能快
+     */
+    public void setRealtime(boolean realtime) {
+        this.mRealtime = realtime;
+    }
+
+    @Override
+    public boolean isRealtime() {
+        return mRealtime;
+    }
+
+    @Override
+    public void prepare() throws IOException {
+    }
+
+    @Override
+    public void start() throws IOException {
+        mPacedBytes = 0;
+        mPaceStartNanos = System.nanoTime();
+    }
+
+    @Override
+    public void stop() {
+    }
+
+    /**
+     * 实时模式下，等到墙钟追上已输出数据对应的时长
+     *
+     * @param bytes 本次输出的字节数
+     */
+    protected void pace(int bytes) {
+        if (!mRealtime || bytes <= 0) {
+            return;
+        }
+        mPacedBytes += bytes;
+        long dueNanos = mPaceStartNanos + mPacedBytes / mFrameBytes * 1000000000L / mSampleRate;
+        long waitNanos = dueNanos - System.nanoTime();
+        if (waitNanos > 0) {
+            try {
+                Thread.sleep(waitNanos / 1000000L, (int) (waitNanos % 1000000L));
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        }
+    }
+}
@@ -0,0 +1,160 @@
+package cn.sysmaster.soundrecordmanager.source;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+
+import cn.sysmaster.soundrecordmanager.utils.ByteUtils;
+
+/**
+ * @author dabo
+ * @describe 文件数据源，读取 PCM 或 WAV 文件
+ * <p>
+ * 读到数据末尾时 read 返回 -1，录音引擎随之结束录制；暂停后继续从上次的位置读取。
+ */
+public class FileAudioSource extends BaseAudioSource {
+
+    private final File mFile;
+    /**
+     * 音频数据在文件中的起止位置
+     */
+    private final long mDataOffset;
+    private final long mDataEnd;
+
+    private RandomAccessFile mRaf;
+    private long mPosition;
+
+    /**
+     * 读取裸 PCM 文件
+     *
+     * @param pcmFile      pcm文件
+     * @param sampleRate   采样率
+     * @param channelCount 声道数
+     * @param sampleBits   采样位宽，8 或 16
+     */
+    public FileAudioSource(File pcmFile, int sampleRate, int channelCount, int sampleBits) {
+        super(sampleRate, channelCount, sampleBits);
+        this.mFile = pcmFile;
+        this.mDataOffset = 0;
+        this.mDataEnd = pcmFile.length();
+        this.mPosition = mDataOffset;
+    }
+
+    private FileAudioSource(File wavFile, WavInfo info) {
+        super(info.sampleRate, info.channelCount, info.sampleBits);
+        this.mFile = wavFile;
+        this.mDataOffset = info.dataOffset;
+        this.mDataEnd = info.dataEnd;
+        this.mPosition = mDataOffset;
+    }
+
+    /**
+     * 读取 WAV 文件，音频格式取自文件头
+     *
+     * @param wavFile wav文件
+     * @throws IOException 文件不存在或不是 16/8bit PCM 格式的 WAV
+     */
+    public static FileAudioSource wav(File wavFile) throws IOException {
+        return new FileAudioSource(wavFile, WavInfo.read(wavFile));
+    }
+
+    public File getFile() {
+        return mFile;
+    }
+
+    @Override
+    public void start() throws IOException {
+        super.start();
+        if (mRaf == null) {
+            mRaf = new RandomAccessFile(mFile, "r");
+        }
+        mRaf.seek(mPosition);
+    }
+
+    @Override
+    public int read(byte[] buffer, int offset, int length) throws IOException {
+        long remaining = mDataEnd - mPosition;
+        if (remaining <= 0) {
+            return -1;
+        }
+        int read = mRaf.read(buffer, offset, (int) Math.min(length, remaining));
+        if (read < 0) {
+            return -1;
+        }
+        mPosition += read;
+        pace(read);
+        return read;
+    }
+
+    @Override
+    public void release() {
+        if (mRaf != null) {
+            try {
+                mRaf.close();
+            } catch (IOException e) {
+                e.printStackTrace();
+            }
+            mRaf = null;
+        }
+        mPosition = mDataOffset;
+    }
+
+    /**
+     * WAV 文件头信息，按 chunk 解析，兼容 fmt 与 data 之间存在 LIST 等附加块
+     */
+    private static final class WavInfo {
+        int sampleRate;
+        int channelCount;
+        int sampleBits;
+        long dataOffset;
+        long dataEnd;
+
+        static WavInfo read(File file) throws IOException {
+            RandomAccessFile raf = new RandomAccessFile(file, "r");
+            try {
+                byte[] chunk = new byte[8];
+                raf.readFully(chunk);
+                if (!"RIFF".equals(new String(chunk, 0, 4, "US-ASCII"))) {
+                    throw new IOException("not a RIFF file: " + file);
+                }
+                raf.readFully(chunk, 0, 4);
+                if (!"WAVE".equals(new String(chunk, 0, 4, "US-ASCII"))) {
+                    throw new IOException("not a WAVE file: " + file);
+                }
+                WavInfo info = null;
+                long length = raf.length();
+                while (raf.getFilePointer() + 8 <= length) {
+                    raf.readFully(chunk);
+                    String id = new String(chunk, 0, 4, "US-ASCII");
+                    long size = ByteUtils.toInt(chunk, 4) & 0xffffffffL;
+                    long body = raf.getFilePointer();
+                    if ("fmt ".equals(id)) {
+                        byte[] fmt = new byte[16];
+                        raf.readFully(fmt);
+                        int audioFormat = (fmt[0] & 0xff) | ((fmt[1] & 0xff) << 8);
+                        if (audioFormat != 1) {
+                            throw new IOException("unsupported wav format: " + audioFormat);
+                        }
+                        info = new WavInfo();
+                        info.channelCount = (fmt[2] & 0xff) | ((fmt[3] & 0xff) << 8);
+                        info.sampleRate = ByteUtils.toInt(fmt, 4);
+                        info.sampleBits = (fmt[14] & 0xff) | ((fmt[15] & 0xff) << 8);
+                    } else if ("data".equals(id)) {
+                        if (info == null) {
+                            throw new IOException("data chunk before fmt chunk: " + file);
+                        }
+                        info.dataOffset = body;
+                        // 录音过程中写出的文件 data 长度可能不准确，以文件实际长度为上限
+                        info.dataEnd = size > 0 ? Math.min(body + size, length) : length;
+                        return info;
+                    }
+                    // chunk 按2字节对齐
+                    raf.seek(body + size + (size & 1));
+                }
+                throw new IOException("no data chunk: " + file);
+            } finally {
+                raf.close();
+            }
+        }
+    }
+}
@@ -0,0 +1,119 @@
+package cn.sysmaster.soundrecordmanager.source;
+
+import java.util.Random;
+
+/**
+ * @author dabo
+ * @describe 合成信号数据源：正弦、白噪声、静音
+ * <p>
+ * 不依赖任何设备或文件，默认尽可能快地输出，用于无设备压测录音流程。
+ */
+public class SyntheticAudioSource extends BaseAudioSource {
+
+    /**
+     * 波形
+     */
+    public enum Waveform {
+        /**
+         * 正弦波
+         */
+        SINE,
+        /**
+         * 均匀白噪声
+         */
+        NOISE,
+        /**
+         * 静音
+         */
+        SILENCE
+    }
+
+    private final Waveform mWaveform;
+    /**
+     * 总帧数（每帧包含所有声道的一个采样），小于0为不限长度
+     */
+    private final long mTotalFrames;
+
+    /**
+     * 正弦频率 Hz
+     */
+    private double mFrequency = 440;
+    /**
+     * 幅度 0~1，相对满量程
+     */
+    private double mAmplitude = 0.5;
+
+    private final Random mRandom = new Random(42);
+    private long mFrameIndex;
+
+    /**
+     * @param waveform     波形
+     * @param sampleRate   采样率
+     * @param channelCount 声道数，各声道输出相同数据
+     * @param sampleBits   采样位宽，8 或 16
+     * @param durationMs   时长，毫秒，0为不限长度
+     */
+    public SyntheticAudioSource(Waveform waveform, int sampleRate, int channelCount, int sampleBits, long durationMs) {
+        super(sampleRate, channelCount, sampleBits);
+        this.mWaveform = waveform;
+        this.mTotalFrames = durationMs > 0 ? durationMs * sampleRate / 1000 : -1;
+    }
+
+    public void setFrequency(double frequency) {
+        this.mFrequency = frequency;
+    }
+
+    public void setAmplitude(double amplitude) {
+        this.mAmplitude = Math.max(0, Math.min(1, amplitude));
+    }
+
+    @Override
+    public int read(byte[] buffer, int offset, int length) {
+        int frames = length / mFrameBytes;
+        if (mTotalFrames >= 0) {
+            long remaining = mTotalFrames - mFrameIndex;
+            if (remaining <= 0) {
+                return -1;
+            }
+            frames = (int) Math.min(frames, remaining);
+        }
+        double scale = mAmplitude * (mSampleBits == 16 ? Short.MAX_VALUE : Byte.MAX_VALUE);
+        double step = 2 * Math.PI * mFrequency / mSampleRate;
+        int p = offset;
+        for (int i = 0; i < frames; i++) {
+            int value;
+            switch (mWaveform) {
+                case SINE:
+                    // 用帧序号取模计算相位，长时间运行不累积误差
+                    value = (int) Math.round(scale * Math.sin(step * (mFrameIndex % mSampleRate)
+                            + 2 * Math.PI * (mFrequency * (mFrameIndex / mSampleRate) % 1)));
+                    break;
+                case NOISE:
+                    value = (int) Math.round(scale * (2 * mRandom.nextDouble() - 1));
+                    break;
+                default:
+                    value = 0;
+                    break;
+            }
+            for (int c = 0; c < mChannelCount; c++) {
+                if (mSampleBits == 16) {
+                    buffer[p++] = (byte) value;
+                    buffer[p++] = (byte) (value >> 8);
+                } else {
+                    // 8bit PCM 为无符号
+                    buffer[p++] = (byte) (value + 128);
+                }
+            }
+            mFrameIndex++;
+        }
+        int read = frames * mFrameBytes;
+        pace(read);
+        return read;
+    }
+
+    @Override
+    public void release() {
+        mFrameIndex = 0;
+        mRandom.setSeed(42);
+    }
+}
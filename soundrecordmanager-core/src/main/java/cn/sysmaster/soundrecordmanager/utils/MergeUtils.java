@@ -0,0 +1,215 @@
+package cn.sysmaster.soundrecordmanager.utils;
+
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
+
+/**
+ * @author dabo
+ * @describe 音频片段拼接工具
+ * <p>
+ * 基于 FileChannel.transferTo / transferFrom，由内核完成数据复制，不经过 Java 层的 byte[]：
+ * 顺序拼接用 transferTo 追加，并行拼接用 transferFrom 按预先计算的位置定位写入。
+ * 录音引擎自身直接写入结果文件，不再需要拼接；本工具用于拼接外部的 pcm 片段，或把多个 pcm 片段合成一个 WAV。
+ * 源文件不会被删除。
+ */
+public class MergeUtils {
+
+    private MergeUtils() {
+    }
+
+    /**
+     * 顺序拼接
+     *
+     * @param output   输出文件，已存在时覆盖
+     * @param segments 片段文件，按顺序拼接
+     * @return 输出文件长度
+     * @throws IOException 读写失败
+     */
+    public static long merge(File output, List<File> segments) throws IOException {
+        return merge(output, 0, segments);
+    }
+
+    /**
+     * 并行拼接：预先计算每个片段在输出文件中的位置，各片段在线程池中按位置并发写入
+     * <p>
+     * 适合片段多、存储支持并发写入（如 SSD）的场景；FileChannel 的定位写入是线程安全的。
+     *
+     * @param output   输出文件，已存在时覆盖
+     * @param segments 片段文件，按顺序拼接
+     * @param executor 执行拼接任务的线程池
+     * @return 输出文件长度
+     * @throws IOException 读写失败
+     */
+    public static long mergeParallel(File output, List<File> segments, ExecutorService executor) throws IOException {
+        return mergeParallel(output, 0, segments, executor);
+    }
+
+    /**
+     * 把多个 pcm 片段拼接为 WAV 文件
+     *
+     * @param output       输出文件，已存在时覆盖
+     * @param segments     pcm 片段文件，按顺序拼接，格式须一致
+     * @param sampleRate   采样率
+     * @param channelCount 声道数
+     * @param sampleBits   采样位宽
+     * @return 输出文件长度
+     * @throws IOException 读写失败
+     */
+    public static long mergeToWav(File output, List<File> segments, int sampleRate, int channelCount, int sampleBits)
+            throws IOException {
+        long length = merge(output, WavUtils.HEADER_SIZE, segments);
+        writeWavHeader(output, length, sampleRate, channelCount, sampleBits);
+        return length;
+    }
+
+    /**
+     * @param offset 输出文件开头预留的字节数，例如文件头
+     */
+    private static long merge(File output, long offset, List<File> segments) throws IOException {
+        RandomAccessFile raf = new RandomAccessFile(output, "rw");
+        try {
+            FileChannel out = raf.getChannel();
+            out.truncate(0);
+            out.position(offset);
+            for (int i = 0; i < segments.size(); i++) {
+                transferTo(segments.get(i), out);
+            }
+            return out.position();
+        } finally {
+            raf.close();
+        }
+    }
+
+    private static long mergeParallel(File output, long offset, List<File> segments, ExecutorService executor)
+            throws IOException {
+        // 预先计算每个片段的写入位置
+        final long[] positions = new long[segments.size()];
+        long length = offset;
+        for (int i = 0; i < segments.size(); i++) {
+            positions[i] = length;
+            length += segments.get(i).length();
+        }
+        RandomAccessFile raf = new RandomAccessFile(output, "rw");
+        try {
+            final FileChannel out = raf.getChannel();
+            out.truncate(0);
+            raf.setLength(length);
+            List<Future<Long>> futures = new ArrayList<>(segments.size());
+            for (int i = 0; i < segments.size(); i++) {
+                final File segment = segments.get(i);
+                final long position = positions[i];
+                futures.add(executor.submit(new Callable<Long>() {
+                    @Override
+                    public Long call() throws IOException {
+                        return transferFrom(segment, out, position);
+                    }
+                }));
+            }
+            IOException error = null;
+            for (int i = 0; i < futures.size(); i++) {
+                try {
+                    futures.get(i).get();
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                    if (error == null) {
+                        error = new IOException("merge interrupted");
+                    }
+                } catch (ExecutionException e) {
+                    if (error == null) {
+                        error = e.getCause() instanceof IOException
+                                ? (IOException) e.getCause() : new IOException(e.getCause());
+                    }
+                }
+            }
+            if (error != null) {
+                throw error;
+            }
+            return length;
+        } finally {
+            raf.close();
+        }
+    }
+
+    /**
+     * 把整个文件追加到输出通道的当前位置
+     *
+     * @return 复制的字节数
+     */
+    private static long transferTo(File segment, FileChannel out) throws IOException {
+        FileInputStream fis = new FileInputStream(segment);
+        try {
+            FileChannel in = fis.getChannel();
+            long size = in.size();
+            long done = 0;
+            // 单次可能只复制一部分（部分系统单次上限 2GB）
+            while (done < size) {
+                long count = in.transferTo(done, size - done, out);
+                if (count <= 0) {
+                    break;
+                }
+                done += count;
+            }
+            if (done < size) {
+                throw new IOException("short transfer: " + segment + " " + done + "/" + size);
+            }
+            return done;
+        } finally {
+            fis.close();
+        }
+    }
+
+    /**
+     * 把整个文件复制到输出通道的指定位置，不改变输出通道的当前位置，可并发调用
+     * <p>
+     * 输出文件须已扩展到不小于 position 的长度
+     *
+     * @return 复制的字节数
+     */
+    private static long transferFrom(File segment, FileChannel out, long position) throws IOException {
+        FileInputStream fis = new FileInputStream(segment);
+        try {
+            FileChannel in = fis.getChannel();
+            long size = in.size();
+            long done = 0;
+            while (done < size) {
+                long count = out.transferFrom(in, position + done, size - done);
+                if (count <= 0) {
+                    break;
+                }
+                done += count;
+            }
+            if (done < size) {
+                throw new IOException("short transfer: " + segment + " " + done + "/" + size);
+            }
+            return done;
+        } finally {
+            fis.close();
+        }
+    }
+
+    private static void writeWavHeader(File output, long length, int sampleRate, int channelCount, int sampleBits)
+            throws IOException {
+        byte[] header = WavUtils.generateWavFileHeader((int) Math.min(length, 0xffffffffL),
+                sampleRate, channelCount, sampleBits);
+        RandomAccessFile raf = new RandomAccessFile(output, "rw");
+        try {
+            ByteBuffer buffer = ByteBuffer.wrap(header);
+            long position = 0;
+            while (buffer.hasRemaining()) {
+                position += raf.getChannel().write(buffer, position);
+            }
+        } finally {
+            raf.close();
+        }
+    }
+}
@@ -14,12 +14,17 @@ import java.io.RandomAccessFile;
 public class WavUtils {
     private static final String TAG = WavUtils.class.getSimpleName();
 
+    /**
+     * 标准 PCM WAV 文件头长度
+     */
+    public static final int HEADER_SIZE = 44;
+
     /**
      * 生成wav格式的Header
      * wave是RIFF文件结构，每一部分为一个chunk，其中有RIFF WAVE chunk，
      * FMT Chunk，Fact chunk（可选）,Data chunk
      *
-     * @param totalAudioLen 不包括header的音频数据总长度
+     * @param totalAudioLen 包括44字节header的文件总长度
      * @param sampleRate    采样率,也就是录制时使用的频率
      * @param channels      audioRecord的频道数量
      * @param sampleBits    位宽
@@ -225,7 +230,8 @@ public class WavUtils {
         int dataChunkSize;
 
         WavHeader(int totalAudioLen, int sampleRate, short channels, short sampleBits) {
-            this.riffChunkSize = totalAudioLen;
+            // RIFF 长度不含 "RIFF" 标识与长度字段本身的 8 字节
+            this.riffChunkSize = totalAudioLen - 8;
             this.channels = channels;
             this.sampleRate = sampleRate;
             this.byteRate = sampleRate * sampleBits / 8 * channels;
@@ -0,0 +1,106 @@
+package cn.sysmaster.soundrecordmanager.core;
+
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+
+/**
+ * 电平表测试：已知幅度的正弦波，以及不按采样对齐的分块输入
+ *
+ * @author dabo
+ */
+public class LevelMeterTest {
+
+    private static final int SAMPLE_RATE = 16000;
+    private static final double EPS = 1e-3;
+
+    /**
+     * 幅度 0.5 的正弦：峰值 0.5，均方根 0.5 / √2
+     */
+    @Test
+    public void sine() {
+        LevelMeter meter = new LevelMeter(SAMPLE_RATE, 1, 16, 100, 0, 0);
+        byte[] pcm = sine(SAMPLE_RATE / 10, 0.5);
+        meter.process(pcm, 0, pcm.length);
+        assertEquals(0.5, meter.getPeak(), EPS);
+        assertEquals(0.5 / Math.sqrt(2), meter.getRms(), EPS);
+    }
+
+    /**
+     * 同一段 PCM 按奇数字节分块输入，每个窗口的结果与整块输入相同
+     */
+    @Test
+    public void oddChunks() {
+        byte[] pcm = new byte[SAMPLE_RATE];
+        byte[] quiet = sine(SAMPLE_RATE / 4, 0.1);
+        byte[] loud = sine(SAMPLE_RATE / 4, 0.8);
+        System.arraycopy(quiet, 0, pcm, 0, quiet.length);
+        System.arraycopy(loud, 0, pcm, quiet.length, loud.length);
+
+        LevelMeter whole = new LevelMeter(SAMPLE_RATE, 1, 16, 20, 30, 100);
+        List<double[]> expected = new ArrayList<>();
+        // 逐个窗口输入整块数据，记录每次更新的结果
+        int window = SAMPLE_RATE / 50 * 2;
+        for (int p = 0; p < pcm.length; p += window) {
+            whole.process(pcm, p, Math.min(window, pcm.length - p));
+            expected.add(new double[]{whole.getPeak(), whole.getRms()});
+        }
+
+        int[] chunks = {1, 3, 7, 333, 641};
+        for (int chunk : chunks) {
+            LevelMeter meter = new LevelMeter(SAMPLE_RATE, 1, 16, 20, 30, 100);
+            List<double[]> actual = new ArrayList<>();
+            for (int p = 0; p < pcm.length; p += chunk) {
+                if (meter.process(pcm, p, Math.min(chunk, pcm.length - p))) {
+                    actual.add(new double[]{meter.getPeak(), meter.getRms()});
+                }
+            }
+            assertEquals("chunk " + chunk, expected.size(), actual.size());
+            for (int i = 0; i < expected.size(); i++) {
+                assertEquals("chunk " + chunk + " window " + i, expected.get(i)[0], actual.get(i)[0], 1e-12);
+                assertEquals("chunk " + chunk + " window " + i, expected.get(i)[1], actual.get(i)[1], 1e-12);
+            }
+        }
+    }
+
+    /**
+     * reset 丢弃上一次留下的半个采样
+     */
+    @Test
+    public void resetDropsPending() {
+        byte[] pcm = sine(SAMPLE_RATE / 10, 0.5);
+        LevelMeter meter = new LevelMeter(SAMPLE_RATE, 1, 16, 100, 0, 0);
+        meter.process(pcm, 0, 1);
+        meter.reset();
+        meter.process(pcm, 0, pcm.length);
+        assertEquals(0.5, meter.getPeak(), EPS);
+        assertEquals(0.5 / Math.sqrt(2), meter.getRms(), EPS);
+    }
+
+    /**
+     * 不足一个采样时不更新
+     */
+    @Test
+    public void partialSample() {
+        LevelMeter meter = new LevelMeter(SAMPLE_RATE, 1, 16, 1, 0, 0);
+        assertFalse(meter.process(new byte[]{0x7f}, 0, 1));
+        assertEquals(0, meter.getPeak(), 0);
+    }
+
+    /**
+     * 16 位小端单声道正弦，频率 1kHz
+     */
+    private static byte[] sine(int samples, double amplitude) {
+        byte[] pcm = new byte[samples * 2];
+        for (int i = 0; i < samples; i++) {
+            short value = (short) Math.round(amplitude * 32767 * Math.sin(2 * Math.PI * 1000 * i / SAMPLE_RATE));
+            pcm[2 * i] = (byte) value;
+            pcm[2 * i + 1] = (byte) (value >> 8);
+        }
+        return pcm;
+    }
+}
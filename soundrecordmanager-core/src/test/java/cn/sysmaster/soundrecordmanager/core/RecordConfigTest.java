@@ -0,0 +1,91 @@
+package cn.sysmaster.soundrecordmanager.core;
+
+import org.junit.Test;
+
+import java.util.concurrent.Executor;
+
+import cn.sysmaster.soundrecordmanager.fftlib.FftPrecision;
+import cn.sysmaster.soundrecordmanager.fftlib.WindowFunction;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertSame;
+
+/**
+ * RecordConfig.Builder 的复制语义：build 与 but 得到的都是独立副本
+ *
+ * @author dabo
+ */
+public class RecordConfigTest {
+
+    private static final Executor EXECUTOR = new Executor() {
+        @Override
+        public void execute(Runnable command) {
+            command.run();
+        }
+    };
+
+    @Test
+    public void buildCopiesAll() {
+        RecordConfig config = configured().build();
+        assertConfigured(config);
+    }
+
+    @Test
+    public void buildIsSnapshot() {
+        RecordConfig.Builder builder = configured();
+        RecordConfig config = builder.build();
+        builder.withSampleRateInHz(8000).withFftFrameSize(256).withAudioRecordDir("/other/");
+        assertConfigured(config);
+        assertEquals(8000, builder.build().getSampleRateInHz());
+    }
+
+    @Test
+    public void butIsIndependent() {
+        RecordConfig.Builder builder = configured();
+        RecordConfig.Builder copy = builder.but();
+        builder.withEncoding(8).withDisplayRate(0);
+        assertConfigured(copy.build());
+        assertEquals(8, builder.build().getEncoding());
+    }
+
+    private static RecordConfig.Builder configured() {
+        return RecordConfig.Builder.create("/records/")
+                .withRecordDuation(60000L)
+                .withMinRecordDuation(1000L)
+                .withRecordFormat(RecordConfig.SoundRecordFormat.PCM)
+                .withSampleRateInHz(44100)
+                .withChannelCount(2)
+                .withEncoding(16)
+                .withFftFrameSize(480)
+                .withFftHopSize(160)
+                .withFftWindow(WindowFunction.HAMMING)
+                .withFftPrecision(FftPrecision.FLOAT)
+                .withWriteBufferSize(128 * 1024)
+                .withDisplayRate(30)
+                .withLevelWindow(20)
+                .withLevelSmoothing(10, 300)
+                .withStateExecutor(EXECUTOR)
+                .withCountDownExecutor(EXECUTOR);
+    }
+
+    private static void assertConfigured(RecordConfig config) {
+        assertEquals("/records/", config.getAudioRecordDir());
+        assertEquals(60000L, config.getRecordDuation());
+        assertEquals(1000L, config.getMinRecordDuation());
+        assertSame(RecordConfig.SoundRecordFormat.PCM, config.getRecordFormat());
+        assertEquals(44100, config.getSampleRateInHz());
+        assertEquals(2, config.getChannelCount());
+        assertEquals(16, config.getEncoding());
+        assertEquals(480, config.getFftFrameSize());
+        assertEquals(160, config.getFftHopSize());
+        assertSame(WindowFunction.HAMMING, config.getFftWindow());
+        assertSame(FftPrecision.FLOAT, config.getFftPrecision());
+        assertEquals(128 * 1024, config.getWriteBufferSize());
+        assertEquals(30, config.getDisplayRate());
+        assertEquals(20, config.getLevelWindowMillis());
+        assertEquals(10, config.getLevelAttackMillis());
+        assertEquals(300, config.getLevelReleaseMillis());
+        assertSame(EXECUTOR, config.getStateExecutor());
+        assertSame(EXECUTOR, config.getCountDownExecutor());
+    }
+}
@@ -0,0 +1,119 @@
+package cn.sysmaster.soundrecordmanager.core;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import cn.sysmaster.soundrecordmanager.SoundRecordState;
+import cn.sysmaster.soundrecordmanager.listener.OnRecordCountDownTimerListener;
+import cn.sysmaster.soundrecordmanager.source.SyntheticAudioSource;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+/**
+ * 采样时钟测试：计时回调的剩余时长与最大时长截断
+ *
+ * @author dabo
+ */
+public class SoundRecorderClockTest {
+
+    private static final long SETTLE_MILLIS = 10000L;
+
+    private File mDir;
+    private final List<Long> mTicks = new ArrayList<>();
+    private int mFinished;
+
+    @Before
+    public void setUp() throws IOException {
+        mDir = File.createTempFile("record", "");
+        mDir.delete();
+        mDir.mkdirs();
+    }
+
+    @After
+    public void tearDown() {
+        File[] files = mDir.listFiles();
+        if (files != null) {
+            for (File file : files) {
+                file.delete();
+            }
+        }
+        mDir.delete();
+    }
+
+    /**
+     * 限制最大时长：每写满一秒回调一次剩余时长，最后回调 0 并结束，文件在最大时长处截断
+     */
+    @Test
+    public void countDown() throws Exception {
+        SoundRecorder recorder = newRecorder(2000L);
+        File file = record(recorder, 5000L);
+        assertEquals("[2000, 1000, 0]", mTicks.toString());
+        assertEquals(1, mFinished);
+        assertEquals(2000L, recorder.getRecordedTime());
+        assertEquals(44 + 2000 * 16 * 2, file.length());
+    }
+
+    /**
+     * 不限制最大时长：不回调剩余时长，已录时长仍按采样数计算
+     */
+    @Test
+    public void unlimited() throws Exception {
+        SoundRecorder recorder = newRecorder(0L);
+        record(recorder, 3000L);
+        assertEquals(0, mTicks.size());
+        assertEquals(0, mFinished);
+        assertEquals(3000L, recorder.getRecordedTime());
+    }
+
+    private SoundRecorder newRecorder(long recordDuation) {
+        SoundRecorder recorder = new SoundRecorder(RecordConfig.Builder.create(mDir.getAbsolutePath() + "/")
+                .withRecordDuation(recordDuation)
+                .withDisplayRate(0)
+                .build());
+        recorder.setOnRecordCountDownTimerListener(new OnRecordCountDownTimerListener() {
+            @Override
+            public void onTick(long millis) {
+                synchronized (mTicks) {
+                    mTicks.add(millis);
+                }
+            }
+
+            @Override
+            public void onFinish() {
+                mFinished++;
+            }
+
+            @Override
+            public void onNotEnough() {
+            }
+        });
+        return recorder;
+    }
+
+    /**
+     * 录制合成数据源直到数据源结束或达到最大时长
+     */
+    private File record(SoundRecorder recorder, long sourceMillis) throws Exception {
+        recorder.setAudioSource(new SyntheticAudioSource(SyntheticAudioSource.Waveform.SINE, 16000, 1, 16, sourceMillis));
+        recorder.start();
+        long deadline = System.currentTimeMillis() + SETTLE_MILLIS;
+        while (recorder.getState() != SoundRecordState.IDLE) {
+            if (System.currentTimeMillis() > deadline) {
+                fail("recorder did not stop, state " + recorder.getState());
+            }
+            Thread.sleep(5);
+        }
+        File file = recorder.stop().get(SETTLE_MILLIS, TimeUnit.MILLISECONDS);
+        assertTrue(file.exists());
+        return file;
+    }
+}
@@ -0,0 +1,106 @@
+package cn.sysmaster.soundrecordmanager.core;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.IOException;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import cn.sysmaster.soundrecordmanager.SoundRecordState;
+import cn.sysmaster.soundrecordmanager.listener.OnRecordDataListener;
+import cn.sysmaster.soundrecordmanager.listener.OnRecordDataRangeListener;
+import cn.sysmaster.soundrecordmanager.listener.OnRecordStateListener;
+import cn.sysmaster.soundrecordmanager.source.SyntheticAudioSource;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * 音频数据回调测试：旧接口收到的副本与按范围回调的数据一致
+ *
+ * @author dabo
+ */
+public class SoundRecorderDataTest {
+
+    private static final long SETTLE_MILLIS = 10000L;
+
+    private File mDir;
+
+    @Before
+    public void setUp() throws IOException {
+        mDir = File.createTempFile("record", "");
+        mDir.delete();
+        mDir.mkdirs();
+    }
+
+    @After
+    public void tearDown() {
+        File[] files = mDir.listFiles();
+        if (files != null) {
+            for (File file : files) {
+                file.delete();
+            }
+        }
+        mDir.delete();
+    }
+
+    /**
+     * 旧接口每次收到恰好等长的数组，拼接后与按范围回调的数据相同
+     */
+    @Test
+    @SuppressWarnings("deprecation")
+    public void legacyListenerGetsExactCopies() throws Exception {
+        SoundRecorder recorder = new SoundRecorder(RecordConfig.Builder.create(mDir.getAbsolutePath() + "/").build());
+
+        final ByteArrayOutputStream range = new ByteArrayOutputStream();
+        recorder.setRecordDataRangeListener(new OnRecordDataRangeListener() {
+            @Override
+            public void onData(byte[] data, int offset, int length) {
+                range.write(data, offset, length);
+            }
+        });
+        record(recorder);
+
+        final ByteArrayOutputStream legacy = new ByteArrayOutputStream();
+        final int[] empty = new int[1];
+        recorder.setRecordDataListener(new OnRecordDataListener() {
+            @Override
+            public void onData(byte[] data) {
+                if (data.length == 0) {
+                    empty[0]++;
+                }
+                legacy.write(data, 0, data.length);
+            }
+        });
+        record(recorder);
+
+        // 100ms、16kHz、单声道 16 位
+        assertEquals(3200, range.size());
+        assertEquals(0, empty[0]);
+        assertArrayEquals(range.toByteArray(), legacy.toByteArray());
+    }
+
+    private static void record(SoundRecorder recorder) throws InterruptedException {
+        final CountDownLatch idle = new CountDownLatch(1);
+        recorder.setRecordStateListener(new OnRecordStateListener() {
+            @Override
+            public void onStateChange(int state) {
+                if (state == SoundRecordState.IDLE) {
+                    idle.countDown();
+                }
+            }
+
+            @Override
+            public void onError(String error) {
+            }
+        });
+        recorder.setAudioSource(new SyntheticAudioSource(SyntheticAudioSource.Waveform.SINE, 16000, 1, 16, 100));
+        recorder.start();
+        assertTrue("recorder did not settle", idle.await(SETTLE_MILLIS, TimeUnit.MILLISECONDS));
+    }
+}
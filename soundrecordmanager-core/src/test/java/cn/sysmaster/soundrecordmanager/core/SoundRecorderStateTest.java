@@ -0,0 +1,736 @@
+package cn.sysmaster.soundrecordmanager.core;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Random;
+import java.util.Set;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executor;
+import java.util.concurrent.Future;
+import java.util.concurrent.FutureTask;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import cn.sysmaster.soundrecordmanager.SoundRecordState;
+import cn.sysmaster.soundrecordmanager.listener.OnRecordStateListener;
+import cn.sysmaster.soundrecordmanager.source.SyntheticAudioSource;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+/**
+ * 录音状态机并发测试：多个线程同时反复 prepare / start / pause / resume / stop
+ *
+ * @author dabo
+ */
+public class SoundRecorderStateTest {
+
+    private static final int THREADS = 4;
+    private static final int OPERATIONS = 400;
+    private static final long SETTLE_MILLIS = 10000L;
+
+    private File mDir;
+
+    @Before
+    public void setUp() throws IOException {
+        mDir = File.createTempFile("record", "");
+        mDir.delete();
+        mDir.mkdirs();
+    }
+
+    @After
+    public void tearDown() {
+        File[] files = mDir.listFiles();
+        if (files != null) {
+            for (File file : files) {
+                file.delete();
+            }
+        }
+        mDir.delete();
+    }
+
+    /**
+     * 随机切换状态：同一时刻最多一次录音在采集，结束后回到空闲，每次录音的结果都能完成，
+     * 取消的准备不留下文件
+     */
+    @Test
+    public void rapidToggle() throws Exception {
+        final SoundRecorder recorder = newRecorder();
+        final CountingSource source = new CountingSource();
+        recorder.setAudioSource(source);
+        final Set<Future<File>> futures = new HashSet<>();
+        final AtomicInteger errors = new AtomicInteger();
+        recorder.setRecordStateListener(new OnRecordStateListener() {
+            @Override
+            public void onStateChange(int state) {
+            }
+
+            @Override
+            public void onError(String error) {
+                errors.incrementAndGet();
+            }
+        });
+
+        final CountDownLatch go = new CountDownLatch(1);
+        List<Thread> threads = new ArrayList<>(THREADS);
+        for (int t = 0; t < THREADS; t++) {
+            final Random random = new Random(t);
+            Thread thread = new Thread(new Runnable() {
+                @Override
+                public void run() {
+                    try {
+                        go.await();
+                    } catch (InterruptedException e) {
+                        return;
+                    }
+                    for (int i = 0; i < OPERATIONS; i++) {
+                        switch (random.nextInt(5)) {
+                            case 0:
+                                recorder.prepare();
+                                break;
+                            case 1:
+                                recorder.start();
+                                break;
+                            case 2:
+                                recorder.pause();
+                                break;
+                            case 3:
+                                recorder.resume();
+                                break;
+                            default:
+                                Future<File> future = recorder.stop();
+                                if (future != null) {
+                                    synchronized (futures) {
+                                        futures.add(future);
+                                    }
+                                }
+                                break;
+                        }
+                        if (random.nextInt(8) == 0) {
+                            Thread.yield();
+                        }
+                    }
+                }
+            });
+            threads.add(thread);
+            thread.start();
+        }
+        go.countDown();
+        for (Thread thread : threads) {
+            thread.join();
+        }
+
+        Future<File> last = recorder.stop();
+        if (last != null) {
+            futures.add(last);
+        }
+        awaitIdle(recorder);
+
+        assertTrue("concurrent captures " + source.mMaxActive.get(), source.mMaxActive.get() <= 1);
+        assertEquals("active captures", 0, source.mActive.get());
+        assertEquals(0, errors.get());
+        Set<String> results = new HashSet<>();
+        for (Future<File> future : futures) {
+            File file;
+            try {
+                file = future.get(SETTLE_MILLIS, TimeUnit.MILLISECONDS);
+            } catch (ExecutionException e) {
+                throw new AssertionError(e.getCause());
+            }
+            if (file != null) {
+                assertTrue(file.exists());
+                results.add(file.getName());
+            }
+        }
+        // 取消的准备在收尾队列中删除文件，等待队列中已提交的收尾完成
+        FutureTask<Void> barrier = new FutureTask<>(new Runnable() {
+            @Override
+            public void run() {
+            }
+        }, null);
+        RecordScheduler.finalizer().execute(barrier);
+        barrier.get(SETTLE_MILLIS, TimeUnit.MILLISECONDS);
+        // 结果文件之外没有残留文件
+        String[] names = mDir.list();
+        for (String name : names) {
+            assertTrue("unexpected file " + name, results.contains(name));
+        }
+    }
+
+    /**
+     * 同时调用 start / stop 只有一次生效，stop 返回同一个结果
+     */
+    @Test
+    public void idempotentStartStop() throws Exception {
+        final SoundRecorder recorder = newRecorder();
+        recorder.setAudioSource(new CountingSource());
+        final AtomicInteger recording = new AtomicInteger();
+        final AtomicInteger stopped = new AtomicInteger();
+        final AtomicInteger errors = new AtomicInteger();
+        recorder.setRecordStateListener(new OnRecordStateListener() {
+            @Override
+            public void onStateChange(int state) {
+                if (state == SoundRecordState.RECORDING) {
+                    recording.incrementAndGet();
+                } else if (state == SoundRecordState.STOP) {
+                    stopped.incrementAndGet();
+                }
+            }
+
+            @Override
+            public void onError(String error) {
+                errors.incrementAndGet();
+            }
+        });
+
+        runConcurrently(new Runnable() {
+            @Override
+            public void run() {
+                recorder.start();
+            }
+        });
+        assertEquals(1, recording.get());
+        assertEquals(SoundRecordState.RECORDING, recorder.getState());
+
+        final List<Future<File>> futures = new ArrayList<>();
+        runConcurrently(new Runnable() {
+            @Override
+            public void run() {
+                Future<File> future = recorder.stop();
+                synchronized (futures) {
+                    futures.add(future);
+                }
+            }
+        });
+        assertEquals(1, stopped.get());
+        for (Future<File> future : futures) {
+            assertSame(futures.get(0), future);
+        }
+        File file = futures.get(0).get(SETTLE_MILLIS, TimeUnit.MILLISECONDS);
+        assertTrue(file.exists());
+        awaitIdle(recorder);
+        assertEquals(0, errors.get());
+    }
+
+    /**
+     * 停止后立即开始下一次录音：上一次的 IDLE 通知不会晚于下一次的 RECORDING
+     */
+    @Test
+    public void idleBeforeNextRecording() throws Exception {
+        final SoundRecorder recorder = newRecorder();
+        recorder.setAudioSource(new CountingSource());
+        final int[] last = {SoundRecordState.IDLE};
+        recorder.setRecordStateListener(new OnRecordStateListener() {
+            @Override
+            public void onStateChange(int state) {
+                if (state != SoundRecordState.FINISH) {
+                    // 结果文件在收尾队列中完成，FINISH 不按录音顺序
+                    synchronized (last) {
+                        last[0] = state;
+                    }
+                }
+            }
+
+            @Override
+            public void onError(String error) {
+            }
+        });
+        for (int i = 0; i < 50; i++) {
+            recorder.stop();
+            do {
+                recorder.start();
+            } while (recorder.getState() != SoundRecordState.RECORDING);
+            synchronized (last) {
+                assertEquals(SoundRecordState.RECORDING, last[0]);
+            }
+        }
+        recorder.stop();
+        awaitIdle(recorder);
+    }
+
+    /**
+     * 数据源很快读完：采集线程的 STOP、IDLE 不会早于 start 的 RECORDING
+     */
+    @Test
+    public void stateOrderOnSourceEnd() throws Exception {
+        // 调用线程投递状态时稍作停顿，放大切换状态与投递通知之间的窗口
+        Executor slowCaller = new Executor() {
+            @Override
+            public void execute(Runnable command) {
+                if (!"SoundRecord-Capture".equals(Thread.currentThread().getName())) {
+                    try {
+                        Thread.sleep(2);
+                    } catch (InterruptedException e) {
+                        Thread.currentThread().interrupt();
+                    }
+                }
+                command.run();
+            }
+        };
+        SoundRecorder recorder = new SoundRecorder(RecordConfig.Builder.create(mDir.getAbsolutePath() + "/")
+                .withStateExecutor(slowCaller)
+                .build());
+        recorder.setAudioSource(new SyntheticAudioSource(SyntheticAudioSource.Waveform.SILENCE, 16000, 1, 16, 1));
+        final List<Integer> states = new ArrayList<>();
+        recorder.setRecordStateListener(new OnRecordStateListener() {
+            @Override
+            public void onStateChange(int state) {
+                if (state != SoundRecordState.FINISH) {
+                    synchronized (states) {
+                        states.add(state);
+                    }
+                }
+            }
+
+            @Override
+            public void onError(String error) {
+            }
+        });
+        List<Integer> expected = Arrays.asList(SoundRecordState.RECORDING, SoundRecordState.STOP, SoundRecordState.IDLE);
+        for (int i = 0; i < 100; i++) {
+            if (i % 2 == 0) {
+                // 准备后立即开始，采集线程可能还未挂起
+                recorder.prepare();
+            }
+            recorder.start();
+            awaitIdle(recorder);
+            synchronized (states) {
+                assertEquals("session " + i, expected, states);
+                states.clear();
+            }
+        }
+    }
+
+    /**
+     * 收到 IDLE 时立即开始下一次录音，不会被忽略
+     */
+    @Test
+    public void startOnIdle() throws Exception {
+        final SoundRecorder recorder = newRecorder();
+        recorder.setAudioSource(new SyntheticAudioSource(SyntheticAudioSource.Waveform.SILENCE, 16000, 1, 16, 1));
+        final List<Integer> states = Collections.synchronizedList(new ArrayList<Integer>());
+        final CountDownLatch idle = new CountDownLatch(2);
+        recorder.setRecordStateListener(new OnRecordStateListener() {
+            @Override
+            public void onStateChange(int state) {
+                if (state == SoundRecordState.FINISH) {
+                    return;
+                }
+                states.add(state);
+                if (state == SoundRecordState.IDLE) {
+                    idle.countDown();
+                    if (idle.getCount() == 1) {
+                        recorder.start();
+                    }
+                }
+            }
+
+            @Override
+            public void onError(String error) {
+            }
+        });
+        recorder.start();
+        assertTrue("second recording did not run, states " + states, idle.await(SETTLE_MILLIS, TimeUnit.MILLISECONDS));
+        assertEquals(Arrays.asList(SoundRecordState.RECORDING, SoundRecordState.STOP, SoundRecordState.IDLE,
+                SoundRecordState.RECORDING, SoundRecordState.STOP, SoundRecordState.IDLE), states);
+        awaitIdle(recorder);
+    }
+
+    /**
+     * 多线程随机切换：监听收到的状态序列始终是合法的切换
+     */
+    @Test
+    public void stateOrderConcurrent() throws Exception {
+        final SoundRecorder recorder = newRecorder();
+        recorder.setAudioSource(new CountingSource());
+        final List<String> violations = new ArrayList<>();
+        recorder.setRecordStateListener(new OnRecordStateListener() {
+            private int mLast = SoundRecordState.IDLE;
+
+            @Override
+            public synchronized void onStateChange(int state) {
+                if (state == SoundRecordState.FINISH) {
+                    return;
+                }
+                if (!isValidTransition(mLast, state)) {
+                    synchronized (violations) {
+                        violations.add(mLast + " -> " + state);
+                    }
+                }
+                mLast = state;
+            }
+
+            @Override
+            public void onError(String error) {
+            }
+        });
+        final Random random = new Random(7);
+        runConcurrently(new Runnable() {
+            @Override
+            public void run() {
+                for (int i = 0; i < OPERATIONS; i++) {
+                    int op;
+                    synchronized (random) {
+                        op = random.nextInt(4);
+                    }
+                    switch (op) {
+                        case 0:
+                            recorder.start();
+                            break;
+                        case 1:
+                            recorder.pause();
+                            break;
+                        case 2:
+                            recorder.resume();
+                            break;
+                        default:
+                            recorder.stop();
+                            break;
+                    }
+                }
+            }
+        });
+        recorder.stop();
+        awaitIdle(recorder);
+        synchronized (violations) {
+            assertEquals(Collections.<String>emptyList(), violations);
+        }
+    }
+
+    private static boolean isValidTransition(int from, int to) {
+        switch (from) {
+            case SoundRecordState.IDLE:
+                return to == SoundRecordState.RECORDING;
+            case SoundRecordState.RECORDING:
+                return to == SoundRecordState.PAUSE || to == SoundRecordState.STOP;
+            case SoundRecordState.PAUSE:
+                return to == SoundRecordState.RECORDING || to == SoundRecordState.STOP;
+            case SoundRecordState.STOP:
+                return to == SoundRecordState.IDLE;
+            default:
+                return false;
+        }
+    }
+
+    /**
+     * 暂停后继续使用同一个写文件线程，暂停期间数据已写入文件
+     */
+    @Test
+    public void writerPerSession() throws Exception {
+        SoundRecorder recorder = newRecorder();
+        recorder.setAudioSource(new CountingSource());
+        recorder.start();
+        Thread.sleep(50);
+        Thread writer = findThread("SoundRecord-Writer");
+        assertTrue(writer != null);
+        for (int i = 0; i < 5; i++) {
+            recorder.pause();
+            Thread.sleep(20);
+            recorder.resume();
+            Thread.sleep(20);
+            assertSame(writer, findThread("SoundRecord-Writer"));
+        }
+        File file = recorder.stop().get(SETTLE_MILLIS, TimeUnit.MILLISECONDS);
+        awaitIdle(recorder);
+        assertTrue(!writer.isAlive());
+        assertEquals(44 + recorder.getStats().getCapturedBytes(), file.length());
+    }
+
+    /**
+     * 采集线程发现暂停前又继续：本段没有结束，那次继续的时刻在之后的暂停中清除，
+     * 下一次继续的延迟只按下一次 resume 计算
+     */
+    @Test
+    public void resumeBeforePauseSeen() throws Exception {
+        SoundRecorder recorder = newRecorder();
+        GatedSource source = new GatedSource();
+        recorder.setAudioSource(source);
+        recorder.start();
+        try {
+            assertTrue(source.mEntered.tryAcquire(SETTLE_MILLIS, TimeUnit.MILLISECONDS));
+            // 采集线程阻塞在第一次 read 中，不会看到暂停
+            recorder.pause();
+            recorder.resume();
+            source.mPermits.release();
+            assertTrue(source.mEntered.tryAcquire(SETTLE_MILLIS, TimeUnit.MILLISECONDS));
+            assertEquals("segment ended", 0, source.mStopped.availablePermits());
+            RecordStats stats = recorder.getStats();
+            assertEquals(-1, stats.getResumeLatencyMicros());
+
+            recorder.pause();
+            source.mPermits.release();
+            assertTrue(source.mStopped.tryAcquire(SETTLE_MILLIS, TimeUnit.MILLISECONDS));
+            assertEquals(-1, stats.getResumeMark());
+            assertEquals(-1, stats.getResumeLatencyMicros());
+
+            recorder.resume();
+            source.mPermits.release();
+            assertTrue(source.mEntered.tryAcquire(SETTLE_MILLIS, TimeUnit.MILLISECONDS));
+            source.mPermits.release();
+            assertTrue(source.mEntered.tryAcquire(SETTLE_MILLIS, TimeUnit.MILLISECONDS));
+            assertTrue(stats.getResumeLatencyMicros() >= 0);
+        } finally {
+            Future<File> future = recorder.stop();
+            source.mPermits.release(Integer.MAX_VALUE / 2);
+            assertTrue(future.get(SETTLE_MILLIS, TimeUnit.MILLISECONDS).exists());
+            awaitIdle(recorder);
+        }
+    }
+
+    /**
+     * 准备后未开始即停止：取消准备，删除结果文件
+     */
+    @Test
+    public void stopPrepared() throws Exception {
+        SoundRecorder recorder = newRecorder();
+        recorder.setAudioSource(new CountingSource());
+        recorder.prepare();
+        recorder.prepare();
+        Future<File> future = recorder.stop();
+        assertNull(future.get(SETTLE_MILLIS, TimeUnit.MILLISECONDS));
+        awaitIdle(recorder);
+        assertEquals(0, mDir.list().length);
+    }
+
+    /**
+     * 准备中 stop 返回本次录音的结果（null），而不是上一次录音的文件
+     */
+    @Test
+    public void stopPreparing() throws Exception {
+        final SoundRecorder recorder = newRecorder();
+        recorder.setAudioSource(new CountingSource());
+        recorder.start();
+        Thread.sleep(20);
+        File previous = recorder.stop().get(SETTLE_MILLIS, TimeUnit.MILLISECONDS);
+        assertTrue(previous != null && previous.exists());
+        awaitIdle(recorder);
+
+        final Semaphore entered = new Semaphore(0);
+        final Semaphore proceed = new Semaphore(0);
+        recorder.setAudioSource(new CountingSource() {
+            @Override
+            public void prepare() throws IOException {
+                entered.release();
+                proceed.acquireUninterruptibly();
+                super.prepare();
+            }
+        });
+        Thread starter = new Thread(new Runnable() {
+            @Override
+            public void run() {
+                recorder.start();
+            }
+        });
+        starter.start();
+        try {
+            assertTrue(entered.tryAcquire(SETTLE_MILLIS, TimeUnit.MILLISECONDS));
+            Future<File> future = recorder.stop();
+            assertNull(future.get(SETTLE_MILLIS, TimeUnit.MILLISECONDS));
+            assertNull(recorder.stop().get(SETTLE_MILLIS, TimeUnit.MILLISECONDS));
+        } finally {
+            proceed.release();
+            starter.join();
+        }
+        awaitIdle(recorder);
+        assertTrue(previous.exists());
+        // 取消的准备留下的空文件在收尾队列中删除
+        long deadline = System.currentTimeMillis() + SETTLE_MILLIS;
+        while (mDir.list().length > 1) {
+            if (System.currentTimeMillis() > deadline) {
+                fail("cancelled file not deleted");
+            }
+            Thread.sleep(5);
+        }
+    }
+
+    /**
+     * 数据源格式不支持时准备失败：通知错误并回到空闲，关闭并删除结果文件、释放数据源，
+     * 之后换成正常的数据源可以继续录音
+     */
+    @Test
+    public void setupFailure() throws Exception {
+        SoundRecorder recorder = newRecorder();
+        final AtomicInteger errors = new AtomicInteger();
+        recorder.setRecordStateListener(new OnRecordStateListener() {
+            @Override
+            public void onStateChange(int state) {
+            }
+
+            @Override
+            public void onError(String error) {
+                errors.incrementAndGet();
+            }
+        });
+        CountingSource unsupported = new CountingSource() {
+            @Override
+            public int getSampleBits() {
+                return 24;
+            }
+        };
+        recorder.setAudioSource(unsupported);
+        recorder.prepare();
+        assertEquals(SoundRecordState.IDLE, recorder.getState());
+        recorder.start();
+        assertEquals(SoundRecordState.IDLE, recorder.getState());
+        assertEquals(2, errors.get());
+        assertEquals(2, unsupported.mReleased.get());
+        assertEquals(0, mDir.list().length);
+
+        recorder.setAudioSource(new CountingSource());
+        recorder.start();
+        assertEquals(SoundRecordState.RECORDING, recorder.getState());
+        File file = recorder.stop().get(SETTLE_MILLIS, TimeUnit.MILLISECONDS);
+        assertTrue(file.exists());
+        awaitIdle(recorder);
+        assertEquals(2, errors.get());
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void invalidConfig() {
+        RecordConfig.Builder.create(mDir.getAbsolutePath() + "/")
+                .withFftHopSize(0)
+                .build();
+    }
+
+    private SoundRecorder newRecorder() {
+        return new SoundRecorder(RecordConfig.Builder.create(mDir.getAbsolutePath() + "/")
+                .withRecordDuation(600000L)
+                .build());
+    }
+
+    private static void runConcurrently(final Runnable action) throws InterruptedException {
+        final CountDownLatch go = new CountDownLatch(1);
+        List<Thread> threads = new ArrayList<>(THREADS);
+        for (int i = 0; i < THREADS; i++) {
+            Thread thread = new Thread(new Runnable() {
+                @Override
+                public void run() {
+                    try {
+                        go.await();
+                    } catch (InterruptedException e) {
+                        return;
+                    }
+                    action.run();
+                }
+            });
+            threads.add(thread);
+            thread.start();
+        }
+        go.countDown();
+        for (Thread thread : threads) {
+            thread.join();
+        }
+    }
+
+    /**
+     * 等待采集线程结束、状态回到空闲
+     */
+    private static void awaitIdle(SoundRecorder recorder) throws InterruptedException {
+        long deadline = System.currentTimeMillis() + SETTLE_MILLIS;
+        while (recorder.getState() != SoundRecordState.IDLE || captureThreads() > 0) {
+            if (System.currentTimeMillis() > deadline) {
+                fail("recorder did not settle, state " + recorder.getState());
+            }
+            Thread.sleep(5);
+        }
+    }
+
+    private static Thread findThread(String name) {
+        Thread[] threads = new Thread[Thread.activeCount() + 8];
+        int count = Thread.enumerate(threads);
+        for (int i = 0; i < count; i++) {
+            if (name.equals(threads[i].getName())) {
+                return threads[i];
+            }
+        }
+        return null;
+    }
+
+    private static int captureThreads() {
+        Thread[] threads = new Thread[Thread.activeCount() + 8];
+        int count = Thread.enumerate(threads);
+        int capture = 0;
+        for (int i = 0; i < count; i++) {
+            if ("SoundRecord-Capture".equals(threads[i].getName())) {
+                capture++;
+            }
+        }
+        return capture;
+    }
+
+    /**
+     * 记录同时处于采集中的段数
+     */
+    private static class CountingSource extends SyntheticAudioSource {
+        final AtomicInteger mActive = new AtomicInteger();
+        final AtomicInteger mMaxActive = new AtomicInteger();
+        final AtomicInteger mReleased = new AtomicInteger();
+
+        CountingSource() {
+            super(Waveform.SINE, 16000, 1, 16, 0);
+            setRealtime(true);
+        }
+
+        @Override
+        public void start() throws IOException {
+            int active = mActive.incrementAndGet();
+            int max;
+            while (active > (max = mMaxActive.get()) && !mMaxActive.compareAndSet(max, active)) {
+                // 重试
+            }
+            super.start();
+        }
+
+        @Override
+        public void stop() {
+            super.stop();
+            mActive.decrementAndGet();
+        }
+
+        @Override
+        public void release() {
+            super.release();
+            mReleased.incrementAndGet();
+        }
+    }
+
+    /**
+     * 每次 read 等待测试线程放行，用于控制采集线程看到状态的时机
+     */
+    private static class GatedSource extends SyntheticAudioSource {
+        final Semaphore mPermits = new Semaphore(0);
+        final Semaphore mEntered = new Semaphore(0);
+        final Semaphore mStopped = new Semaphore(0);
+
+        GatedSource() {
+            super(Waveform.SINE, 16000, 1, 16, 0);
+        }
+
+        @Override
+        public int read(byte[] buffer, int offset, int length) {
+            mEntered.release();
+            mPermits.acquireUninterruptibly();
+            return super.read(buffer, offset, length);
+        }
+
+        @Override
+        public void stop() {
+            super.stop();
+            mStopped.release();
+        }
+    }
+}
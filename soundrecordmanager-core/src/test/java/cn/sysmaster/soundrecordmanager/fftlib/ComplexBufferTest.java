@@ -0,0 +1,69 @@
+package cn.sysmaster.soundrecordmanager.fftlib;
+
+import org.junit.Test;
+
+import static cn.sysmaster.soundrecordmanager.fftlib.DftReference.assertClose;
+import static cn.sysmaster.soundrecordmanager.fftlib.DftReference.dft;
+import static cn.sysmaster.soundrecordmanager.fftlib.DftReference.random;
+import static cn.sysmaster.soundrecordmanager.fftlib.DftReference.tolerance;
+import static org.junit.Assert.assertEquals;
+
+/**
+ * ComplexBuffer 的批量运算与 {@link Complex} 逐点运算、直接 DFT 对比
+ *
+ * @author dabo
+ */
+public class ComplexBufferTest {
+
+    private static final double EPSILON = 1e-15;
+
+    @Test
+    public void elementwise() {
+        int n = 16;
+        ComplexBuffer a = new ComplexBuffer(random(n, 1), random(n, 2));
+        ComplexBuffer b = new ComplexBuffer(random(n, 3), random(n, 4));
+        Complex[] x = a.toComplexArray();
+        Complex[] y = b.toComplexArray();
+
+        a.multiply(b).conjugate().scale(0.25);
+        for (int i = 0; i < n; i++) {
+            Complex expected = x[i].times(y[i]).conjugate().scale(0.25);
+            assertEquals(expected.re(), a.re()[i], EPSILON);
+            assertEquals(expected.im(), a.im()[i], EPSILON);
+        }
+
+        double[] magnitude = new double[n];
+        a.magnitude(magnitude);
+        for (int i = 0; i < n; i++) {
+            assertEquals(Math.hypot(a.re()[i], a.im()[i]), magnitude[i], EPSILON);
+        }
+    }
+
+    @Test
+    public void copyFromPadsWithZero() {
+        ComplexBuffer small = ComplexBuffer.valueOf(new Complex[]{new Complex(1, 2), new Complex(3, 4)});
+        ComplexBuffer large = new ComplexBuffer(random(4, 5), random(4, 6));
+        large.copyFrom(small);
+        assertClose("re", new double[]{1, 3, 0, 0}, large.re(), 4, 0);
+        assertClose("im", new double[]{2, 4, 0, 0}, large.im(), 4, 0);
+    }
+
+    /**
+     * 原地变换缓冲区中的数组，与直接 DFT 一致
+     */
+    @Test
+    public void transformInPlace() {
+        for (int n = 1; n <= 256; n <<= 1) {
+            ComplexBuffer buffer = new ComplexBuffer(random(n, n), random(n, ~n));
+            double[][] expected = dft(buffer.re().clone(), buffer.im().clone());
+            FftEngine.transform(buffer.re(), buffer.im());
+            assertClose("re n=" + n, expected[0], buffer.re(), n, tolerance(n));
+            assertClose("im n=" + n, expected[1], buffer.im(), n, tolerance(n));
+        }
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void mismatchedDimensions() {
+        new ComplexBuffer(4).multiply(new ComplexBuffer(8));
+    }
+}
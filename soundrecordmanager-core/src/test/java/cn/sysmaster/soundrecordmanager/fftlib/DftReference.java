@@ -0,0 +1,106 @@
+package cn.sysmaster.soundrecordmanager.fftlib;
+
+import java.util.Random;
+
+import static org.junit.Assert.assertEquals;
+
+/**
+ * 测试用的直接 O(N²) DFT 与比较工具
+ *
+ * @author dabo
+ */
+final class DftReference {
+
+    private DftReference() {
+    }
+
+    /**
+     * 直接计算 X[k] = sum x[t] * exp(-2πikt/n)
+     *
+     * @return {实部, 虚部}
+     */
+    static double[][] dft(double[] re, double[] im) {
+        int n = re.length;
+        double[] outRe = new double[n];
+        double[] outIm = new double[n];
+        for (int k = 0; k < n; k++) {
+            double sumRe = 0;
+            double sumIm = 0;
+            for (int t = 0; t < n; t++) {
+                // kt 对 n 取模，避免大 n 时的相位误差
+                double theta = -2 * Math.PI * (((long) k * t) % n) / n;
+                double c = Math.cos(theta);
+                double s = Math.sin(theta);
+                sumRe += re[t] * c - im[t] * s;
+                sumIm += re[t] * s + im[t] * c;
+            }
+            outRe[k] = sumRe;
+            outIm[k] = sumIm;
+        }
+        return new double[][]{outRe, outIm};
+    }
+
+    /**
+     * @return [-1, 1) 的随机序列，种子固定
+     */
+    static double[] random(int n, long seed) {
+        Random random = new Random(seed);
+        double[] x = new double[n];
+        for (int i = 0; i < n; i++) {
+            x[i] = 2 * random.nextDouble() - 1;
+        }
+        return x;
+    }
+
+    /**
+     * 逐点比较前 count 个元素
+     */
+    static void assertClose(String message, double[] expected, double[] actual, int count, double tolerance) {
+        for (int i = 0; i < count; i++) {
+            assertEquals(message + " [" + i + "]", expected[i], actual[i], tolerance);
+        }
+    }
+
+    static void assertClose(String message, double[] expected, float[] actual, int count, double tolerance) {
+        for (int i = 0; i < count; i++) {
+            assertEquals(message + " [" + i + "]", expected[i], actual[i], tolerance);
+        }
+    }
+
+    /**
+     * 双精度变换的误差界，随长度的对数增长
+     */
+    static double tolerance(int n) {
+        return 1e-12 * n * (1 + Math.log(n));
+    }
+
+    /**
+     * 单精度变换相对双精度结果的误差界，输入幅度不超过 1
+     */
+    static double floatTolerance(int n) {
+        return 1e-6 * Math.sqrt(n) * (1 + Math.log(n));
+    }
+
+    /**
+     * @return 与 {@link #random(int, long)} 相同的序列，转为 float
+     */
+    static float[] randomFloat(int n, long seed) {
+        double[] x = random(n, seed);
+        float[] result = new float[n];
+        for (int i = 0; i < n; i++) {
+            result[i] = (float) x[i];
+        }
+        return result;
+    }
+
+    /**
+     * float 序列转为 double，用于把相同输入交给双精度计划
+     */
+    static double[] toDouble(float[] x) {
+        double[] result = new double[x.length];
+        for (int i = 0; i < x.length; i++) {
+            result[i] = x[i];
+        }
+        return result;
+    }
+}
@@ -0,0 +1,70 @@
+package cn.sysmaster.soundrecordmanager.fftlib;
+
+import org.junit.Test;
+
+import static cn.sysmaster.soundrecordmanager.fftlib.DftReference.assertClose;
+import static cn.sysmaster.soundrecordmanager.fftlib.DftReference.dft;
+import static cn.sysmaster.soundrecordmanager.fftlib.DftReference.random;
+import static cn.sysmaster.soundrecordmanager.fftlib.DftReference.tolerance;
+
+/**
+ * FftEngine 与直接 DFT 对比
+ *
+ * @author dabo
+ */
+public class FftEngineTest {
+
+    @Test
+    public void transform() {
+        for (int n = 1; n <= 1024; n <<= 1) {
+            double[] re = random(n, n);
+            double[] im = random(n, ~n);
+            double[][] expected = dft(re, im);
+            FftEngine.transform(re, im);
+            assertClose("re n=" + n, expected[0], re, n, tolerance(n));
+            assertClose("im n=" + n, expected[1], im, n, tolerance(n));
+        }
+    }
+
+    @Test
+    public void inverse() {
+        for (int n = 1; n <= 1024; n <<= 1) {
+            double[] re = random(n, n);
+            double[] im = random(n, ~n);
+            double[] x = re.clone();
+            double[] y = im.clone();
+            FftEngine.transform(re, im);
+            FftEngine.inverse(re, im);
+            assertClose("re n=" + n, x, re, n, tolerance(n));
+            assertClose("im n=" + n, y, im, n, tolerance(n));
+        }
+    }
+
+    /**
+     * 实数输入的幅度谱等于 DFT 前 n/2+1 个频点的模
+     */
+    @Test
+    public void magnitude() {
+        for (int n = 1; n <= 1024; n <<= 1) {
+            double[] x = random(n, n);
+            double[][] expected = dft(x, new double[n]);
+            int bins = n / 2 + 1;
+            double[] expectedMagnitude = new double[bins];
+            for (int k = 0; k < bins; k++) {
+                expectedMagnitude[k] = 0.5 * Math.hypot(expected[0][k], expected[1][k]);
+            }
+            FftEngine engine = new FftEngine(n);
+            double[] out = new double[bins];
+            engine.magnitude(x, 0.5, out);
+            assertClose("n=" + n, expectedMagnitude, out, bins, tolerance(n));
+            // 重复调用结果不变
+            engine.magnitude(x, 0.5, out);
+            assertClose("again n=" + n, expectedMagnitude, out, bins, tolerance(n));
+        }
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void mismatchedDimensions() {
+        FftEngine.transform(new double[8], new double[4]);
+    }
+}
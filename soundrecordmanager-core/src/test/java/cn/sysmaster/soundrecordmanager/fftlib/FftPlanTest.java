@@ -0,0 +1,103 @@
+package cn.sysmaster.soundrecordmanager.fftlib;
+
+import org.junit.Test;
+
+import static cn.sysmaster.soundrecordmanager.fftlib.DftReference.assertClose;
+import static cn.sysmaster.soundrecordmanager.fftlib.DftReference.dft;
+import static cn.sysmaster.soundrecordmanager.fftlib.DftReference.random;
+import static cn.sysmaster.soundrecordmanager.fftlib.DftReference.tolerance;
+import static org.junit.Assert.assertNotSame;
+import static org.junit.Assert.assertSame;
+
+/**
+ * FftPlan 与直接 DFT 对比
+ *
+ * @author dabo
+ */
+public class FftPlanTest {
+
+    @Test
+    public void powerOfTwo() {
+        for (int n = 1; n <= 1024; n <<= 1) {
+            assertTransform(n);
+        }
+    }
+
+    /**
+     * 只含 2、3、5 因子的长度走混合基
+     */
+    @Test
+    public void mixedRadix() {
+        for (int n = 15; n <= 15 * 64; n <<= 1) {
+            assertTransform(n);
+        }
+        for (int n : new int[]{3, 5, 6, 9, 10, 25, 27, 45, 125, 640, 960}) {
+            assertTransform(n);
+        }
+    }
+
+    /**
+     * 含其他质因子的长度走 Bluestein
+     */
+    @Test
+    public void bluestein() {
+        for (int n : new int[]{7, 11, 13, 17, 31, 97, 257, 509, 1021}) {
+            assertTransform(n);
+        }
+        for (int n : new int[]{14, 49, 77, 1001}) {
+            assertTransform(n);
+        }
+    }
+
+    /**
+     * 正变换后逆变换还原输入
+     */
+    @Test
+    public void inverseRoundTrip() {
+        for (int n : new int[]{1, 2, 8, 256, 15, 60, 960, 7, 97, 1021}) {
+            double[] re = random(n, n);
+            double[] im = random(n, ~n);
+            double[] x = re.clone();
+            double[] y = im.clone();
+            FftPlan plan = FftPlan.get(n);
+            plan.transform(re, im);
+            plan.inverse(re, im);
+            assertClose("re n=" + n, x, re, n, tolerance(n));
+            assertClose("im n=" + n, y, im, n, tolerance(n));
+        }
+    }
+
+    @Test
+    public void sharedPlan() {
+        assertSame(FftPlan.get(256), FftPlan.get(256));
+    }
+
+    /**
+     * 缓存有上限：不断变换长度时淘汰最久未使用的计划，最近使用的保留
+     */
+    @Test
+    public void boundedCache() {
+        FftPlan evicted = FftPlan.get(2);
+        FftPlan kept = FftPlan.get(4);
+        for (int i = 0; i < PlanCache.CAPACITY; i++) {
+            FftPlan.get(4);
+            FftPlan.get(4096 + i * 2);
+        }
+        assertSame(kept, FftPlan.get(4));
+        assertNotSame(evicted, FftPlan.get(2));
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void zeroSize() {
+        FftPlan.get(0);
+    }
+
+    private static void assertTransform(int n) {
+        double[] re = random(n, n);
+        double[] im = random(n, ~n);
+        double[][] expected = dft(re, im);
+        FftPlan.get(n).transform(re, im);
+        assertClose("re n=" + n, expected[0], re, n, tolerance(n));
+        assertClose("im n=" + n, expected[1], im, n, tolerance(n));
+    }
+}
@@ -0,0 +1,73 @@
+package cn.sysmaster.soundrecordmanager.fftlib;
+
+import org.junit.Test;
+
+import static cn.sysmaster.soundrecordmanager.fftlib.DftReference.assertClose;
+import static cn.sysmaster.soundrecordmanager.fftlib.DftReference.floatTolerance;
+import static cn.sysmaster.soundrecordmanager.fftlib.DftReference.randomFloat;
+import static cn.sysmaster.soundrecordmanager.fftlib.DftReference.toDouble;
+import static org.junit.Assert.assertSame;
+
+/**
+ * FloatFftPlan 与相同输入的 FftPlan 结果对比，误差按单精度放宽
+ *
+ * @author dabo
+ */
+public class FloatFftPlanTest {
+
+    @Test
+    public void powerOfTwo() {
+        for (int n = 1; n <= 4096; n <<= 1) {
+            assertTransform(n);
+        }
+    }
+
+    @Test
+    public void mixedRadix() {
+        for (int n : new int[]{3, 5, 6, 15, 60, 480, 640, 960}) {
+            assertTransform(n);
+        }
+    }
+
+    @Test
+    public void bluestein() {
+        for (int n : new int[]{7, 14, 97, 641, 1001, 4099}) {
+            assertTransform(n);
+        }
+    }
+
+    @Test
+    public void inverse() {
+        for (int n : new int[]{256, 480, 641}) {
+            float[] re = randomFloat(n, n);
+            float[] im = randomFloat(n, n + 1);
+            double[] expectedRe = toDouble(re);
+            double[] expectedIm = toDouble(im);
+            FftPlan.get(n).inverse(expectedRe, expectedIm);
+            FloatFftPlan.get(n).inverse(re, im);
+            assertClose("re n=" + n, expectedRe, re, n, floatTolerance(n) / n);
+            assertClose("im n=" + n, expectedIm, im, n, floatTolerance(n) / n);
+        }
+    }
+
+    @Test
+    public void sharedPlan() {
+        assertSame(FloatFftPlan.get(480), FloatFftPlan.get(480));
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void zeroSize() {
+        FloatFftPlan.get(0);
+    }
+
+    private static void assertTransform(int n) {
+        float[] re = randomFloat(n, n);
+        float[] im = randomFloat(n, n + 1);
+        double[] expectedRe = toDouble(re);
+        double[] expectedIm = toDouble(im);
+        FftPlan.get(n).transform(expectedRe, expectedIm);
+        FloatFftPlan.get(n).transform(re, im);
+        assertClose("re n=" + n, expectedRe, re, n, floatTolerance(n));
+        assertClose("im n=" + n, expectedIm, im, n, floatTolerance(n));
+    }
+}
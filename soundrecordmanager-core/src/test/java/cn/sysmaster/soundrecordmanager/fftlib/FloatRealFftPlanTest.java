@@ -0,0 +1,74 @@
+package cn.sysmaster.soundrecordmanager.fftlib;
+
+import org.junit.Test;
+
+import static cn.sysmaster.soundrecordmanager.fftlib.DftReference.assertClose;
+import static cn.sysmaster.soundrecordmanager.fftlib.DftReference.floatTolerance;
+import static cn.sysmaster.soundrecordmanager.fftlib.DftReference.randomFloat;
+import static cn.sysmaster.soundrecordmanager.fftlib.DftReference.toDouble;
+import static org.junit.Assert.assertEquals;
+
+/**
+ * FloatRealFftPlan 与相同输入的 RealFftPlan 结果对比，误差按单精度放宽
+ *
+ * @author dabo
+ */
+public class FloatRealFftPlanTest {
+
+    @Test
+    public void powerOfTwo() {
+        for (int n = 1; n <= 4096; n <<= 1) {
+            assertTransform(n);
+        }
+    }
+
+    @Test
+    public void otherSizes() {
+        for (int n : new int[]{3, 6, 12, 15, 30, 34, 98, 480, 641, 960}) {
+            assertTransform(n);
+        }
+    }
+
+    @Test
+    public void magnitude() {
+        int n = 512;
+        float[] x = randomFloat(n, n);
+        RealFftPlan plan = RealFftPlan.get(n);
+        int bins = plan.getBinCount();
+        double[] re = new double[bins];
+        double[] im = new double[bins];
+        plan.transform(toDouble(x), re, im);
+        double[] expected = new double[bins];
+        for (int k = 0; k < bins; k++) {
+            expected[k] = Math.hypot(re[k], im[k]) / n;
+        }
+        float[] out = new float[bins];
+        FloatRealFftPlan.get(n).magnitude(x, 1.0f / n, new float[bins], new float[bins], out);
+        assertClose("magnitude", expected, out, bins, floatTolerance(n) / n);
+    }
+
+    @Test
+    public void binCount() {
+        assertEquals(257, FloatRealFftPlan.get(512).getBinCount());
+        assertEquals(8, FloatRealFftPlan.get(15).getBinCount());
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void outputTooShort() {
+        FloatRealFftPlan.get(8).transform(new float[8], new float[4], new float[4]);
+    }
+
+    private static void assertTransform(int n) {
+        float[] x = randomFloat(n, n);
+        RealFftPlan plan = RealFftPlan.get(n);
+        int bins = plan.getBinCount();
+        double[] expectedRe = new double[bins];
+        double[] expectedIm = new double[bins];
+        plan.transform(toDouble(x), expectedRe, expectedIm);
+        float[] re = new float[bins];
+        float[] im = new float[bins];
+        FloatRealFftPlan.get(n).transform(x, re, im);
+        assertClose("re n=" + n, expectedRe, re, bins, floatTolerance(n));
+        assertClose("im n=" + n, expectedIm, im, bins, floatTolerance(n));
+    }
+}
@@ -0,0 +1,62 @@
+package cn.sysmaster.soundrecordmanager.fftlib;
+
+import org.junit.Test;
+
+import static cn.sysmaster.soundrecordmanager.fftlib.DftReference.assertClose;
+import static cn.sysmaster.soundrecordmanager.fftlib.DftReference.dft;
+import static cn.sysmaster.soundrecordmanager.fftlib.DftReference.random;
+import static cn.sysmaster.soundrecordmanager.fftlib.DftReference.tolerance;
+import static org.junit.Assert.assertEquals;
+
+/**
+ * RealFftPlan 的 N/2+1 个频点与直接 DFT 对比
+ *
+ * @author dabo
+ */
+public class RealFftPlanTest {
+
+    @Test
+    public void powerOfTwo() {
+        for (int n = 1; n <= 1024; n <<= 1) {
+            assertTransform(n);
+        }
+    }
+
+    /**
+     * 偶数长度打包成 N/2 点混合基或 Bluestein 变换，奇数长度退化为 N 点复数变换
+     */
+    @Test
+    public void otherSizes() {
+        for (int n : new int[]{3, 6, 12, 15, 30, 34, 98, 480, 641}) {
+            assertTransform(n);
+        }
+    }
+
+    @Test
+    public void binCount() {
+        assertEquals(1, RealFftPlan.get(1).getBinCount());
+        assertEquals(2, RealFftPlan.get(2).getBinCount());
+        assertEquals(257, RealFftPlan.get(512).getBinCount());
+        assertEquals(8, RealFftPlan.get(15).getBinCount());
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void outputTooShort() {
+        RealFftPlan.get(8).transform(new double[8], new double[4], new double[4]);
+    }
+
+    private static void assertTransform(int n) {
+        double[] x = random(n, n);
+        double[][] expected = dft(x, new double[n]);
+        RealFftPlan plan = RealFftPlan.get(n);
+        int bins = plan.getBinCount();
+        double[] re = new double[bins];
+        double[] im = new double[bins];
+        plan.transform(x, re, im);
+        assertClose("re n=" + n, expected[0], re, bins, tolerance(n));
+        assertClose("im n=" + n, expected[1], im, bins, tolerance(n));
+        // 输入不被修改，重复变换结果不变
+        plan.transform(x, re, im);
+        assertClose("again n=" + n, expected[0], re, bins, tolerance(n));
+    }
+}
@@ -0,0 +1,131 @@
+package cn.sysmaster.soundrecordmanager.fftlib;
+
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static cn.sysmaster.soundrecordmanager.fftlib.DftReference.assertClose;
+import static org.junit.Assert.assertEquals;
+
+/**
+ * StftProcessor 的帧数、帧移与分块写入
+ *
+ * @author dabo
+ */
+public class StftProcessorTest {
+
+    private static final int FRAME_SIZE = 64;
+    private static final int HOP_SIZE = 24;
+
+    /**
+     * 第一帧在攒满 frameSize 个采样点时输出，之后每 hopSize 个采样点一帧
+     */
+    @Test
+    public void frameCount() {
+        for (int samples : new int[]{0, FRAME_SIZE - 1, FRAME_SIZE, FRAME_SIZE + HOP_SIZE - 1,
+                FRAME_SIZE + HOP_SIZE, 1000}) {
+            List<double[]> frames = run(pcm(samples, 2), 1, FRAME_SIZE * 2, FftPrecision.DOUBLE);
+            int expected = samples < FRAME_SIZE ? 0 : 1 + (samples - FRAME_SIZE) / HOP_SIZE;
+            assertEquals("samples=" + samples, expected, frames.size());
+        }
+    }
+
+    /**
+     * 每次写入的字节数不按采样帧对齐时，结果与一次写入完全相同
+     */
+    @Test
+    public void unalignedWrites() {
+        for (int channels = 1; channels <= 2; channels++) {
+            byte[] data = pcm(1000, channels * 2);
+            List<double[]> whole = run(data, channels, data.length, FftPrecision.DOUBLE);
+            for (int chunk : new int[]{1, 3, 7, 101}) {
+                List<double[]> chunked = run(data, channels, chunk, FftPrecision.DOUBLE);
+                assertEquals("chunk=" + chunk, whole.size(), chunked.size());
+                for (int i = 0; i < whole.size(); i++) {
+                    assertClose("chunk=" + chunk + " frame=" + i, whole.get(i), chunked.get(i), whole.get(i).length, 0);
+                }
+            }
+        }
+    }
+
+    /**
+     * 每帧的幅度谱等于对最近 frameSize 个采样点加窗后做 DFT
+     */
+    @Test
+    public void frameContents() {
+        int samples = 500;
+        byte[] data = pcm(samples, 2);
+        List<double[]> frames = run(data, 1, 37, FftPrecision.DOUBLE);
+        double[] window = WindowFunction.HANN.create(FRAME_SIZE);
+        double sum = 0;
+        for (double w : window) {
+            sum += w;
+        }
+        for (int f = 0; f < frames.size(); f++) {
+            int start = f * HOP_SIZE;
+            double[] x = new double[FRAME_SIZE];
+            for (int i = 0; i < FRAME_SIZE; i++) {
+                int p = 2 * (start + i);
+                x[i] = (short) ((data[p] & 0xff) | ((data[p + 1] & 0xff) << 8)) * window[i];
+            }
+            double[][] spectrum = DftReference.dft(x, new double[FRAME_SIZE]);
+            double[] expected = new double[FRAME_SIZE / 2 + 1];
+            for (int k = 0; k < expected.length; k++) {
+                expected[k] = Math.hypot(spectrum[0][k], spectrum[1][k]) * 2 / sum;
+            }
+            assertClose("frame=" + f, expected, frames.get(f), expected.length, 1e-9);
+        }
+    }
+
+    /**
+     * 清空后丢弃半个采样帧，重新攒满 frameSize 个采样点
+     */
+    @Test
+    public void resetDropsPending() {
+        final List<double[]> frames = new ArrayList<>();
+        StftProcessor stft = newProcessor(1, FftPrecision.DOUBLE, frames);
+        byte[] data = pcm(FRAME_SIZE, 2);
+        stft.write(data, 0, 3);
+        stft.reset();
+        stft.write(data, 0, data.length);
+        assertEquals(1, frames.size());
+    }
+
+    /**
+     * 16bit 正弦，多声道时各声道相同
+     */
+    private static byte[] pcm(int samples, int frameBytes) {
+        byte[] data = new byte[samples * frameBytes];
+        for (int i = 0; i < samples; i++) {
+            int value = (int) Math.round(12000 * Math.sin(2 * Math.PI * 5 * i / FRAME_SIZE) + 3000 * Math.sin(i * 0.9));
+            for (int p = i * frameBytes; p < (i + 1) * frameBytes; p += 2) {
+                data[p] = (byte) value;
+                data[p + 1] = (byte) (value >> 8);
+            }
+        }
+        return data;
+    }
+
+    private static List<double[]> run(byte[] data, int channels, int chunk, FftPrecision precision) {
+        List<double[]> frames = new ArrayList<>();
+        StftProcessor stft = newProcessor(channels, precision, frames);
+        for (int offset = 0; offset < data.length; offset += chunk) {
+            stft.write(data, offset, Math.min(chunk, data.length - offset));
+        }
+        return frames;
+    }
+
+    private static StftProcessor newProcessor(int channels, FftPrecision precision, final List<double[]> frames) {
+        StftProcessor stft = new StftProcessor(FRAME_SIZE, HOP_SIZE, WindowFunction.HANN, channels, 16, precision);
+        stft.setOnSpectrumListener(new StftProcessor.OnSpectrumListener() {
+            @Override
+            public void onSpectrum(double[] magnitude, int binCount) {
+                double[] copy = new double[binCount];
+                System.arraycopy(magnitude, 0, copy, 0, binCount);
+                frames.add(copy);
+            }
+        });
+        return stft;
+    }
+}
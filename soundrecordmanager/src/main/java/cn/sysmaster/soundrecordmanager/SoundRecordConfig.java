@@ -4,35 +4,25 @@ import android.content.Context;
 import android.media.AudioFormat;
 
 import java.io.File;
+import java.util.concurrent.Executor;
+
+import cn.sysmaster.soundrecordmanager.core.FlushPolicy;
+import cn.sysmaster.soundrecordmanager.core.RecordConfig;
+import cn.sysmaster.soundrecordmanager.core.SoundRecorder;
+import cn.sysmaster.soundrecordmanager.fftlib.FftPrecision;
+import cn.sysmaster.soundrecordmanager.fftlib.WindowFunction;
 
 /**
  * @author dabo
  * @date 2019/4/12
  * @describe 录音配置参数
+ * <p>
+ * 通用参数定义在 {@link RecordConfig}，这里只保留 Android 相关的声道、编码配置。
  */
-public class SoundRecordConfig {
+public class SoundRecordConfig extends RecordConfig {
 
 
     private Context mContext;
-    /**
-     * 录音文件存放路径
-     */
-    private String mAudioRecordDir = "";
-
-    /**
-     * 录音时长，0为不限制时长,毫秒
-     */
-    private long mRecordDuation = 0L;
-
-    /**
-     * 最小录音时长,毫秒
-     */
-    private long mMinRecordDuation = 0L;
-
-    /**
-     * 录音格式，默认WAV
-     */
-    private SoundRecordFormat mRecordFormat = SoundRecordFormat.WAV;
     /**
      * 声道设置：android支持双声道立体声和单声道。MONO单声道，STEREO立体声
      * 默认单声道
@@ -44,75 +34,59 @@ public class SoundRecordConfig {
      */
     private int mAudioFormat = AudioFormat.ENCODING_PCM_16BIT;
 
-    /**
-     * 采样率：音频的采样频率，每秒钟能够采样的次数，采样率越高，音质越高。
-     */
-    private int mSampleRateInHz = 16000;
-
-    private SoundRecordConfig() {
+    private SoundRecordConfig(RecordConfig config, Context context, int channelConfig, int audioFormat) {
+        super(config);
+        this.mContext = context;
+        this.mChannelConfig = channelConfig;
+        this.mAudioFormat = audioFormat;
     }
 
+
     /**
-     * 录音格式
+     * 通用参数委托给 {@link RecordConfig.Builder}，这里只保存 Android 的 Context、声道设置和编码制式。
+     * 新增的通用参数只加在 RecordConfig.Builder 中，通过 {@link #getRecordConfigBuilder()} 设置
      */
-    public enum SoundRecordFormat {
-        /**
-         * wav格式
-         */
-        WAV(".wav"),
-        /**
-         * pcm格式
-         */
-        PCM(".pcm");
-
-        private String extension;
-
-        public String getExtension() {
-            return extension;
-        }
-
-        SoundRecordFormat(String extension) {
-            this.extension = extension;
-        }
-    }
-
-
     public static final class AudioRecordConfigBuilder {
-        private Context mContext;
-        private String mAudioRecordDir = "";
-        private long mRecordDuation = 0L;
-        private long mMinRecordDuation = 0L;
-        private SoundRecordFormat mRecordFormat = SoundRecordFormat.WAV;
+        private final Context mContext;
+        private final RecordConfig.Builder mBuilder;
         private int mChannelConfig = AudioFormat.CHANNEL_IN_MONO;
         private int mAudioFormat = AudioFormat.ENCODING_PCM_16BIT;
-        private int mSampleRateInHz = 16000;
 
-        private AudioRecordConfigBuilder(Context context) {
+        private AudioRecordConfigBuilder(Context context, RecordConfig.Builder builder) {
             this.mContext = context;
-            this.mAudioRecordDir = context.getExternalFilesDir(null).getAbsolutePath() + File.separator + "SoundRecord" + File.separator;
+            this.mBuilder = builder;
         }
 
         public static AudioRecordConfigBuilder create(Context context) {
-            return new AudioRecordConfigBuilder(context);
+            String audioRecordDir = context.getExternalFilesDir(null).getAbsolutePath() + File.separator + "SoundRecord" + File.separator;
+            return new AudioRecordConfigBuilder(context, RecordConfig.Builder.create(audioRecordDir));
+        }
+
+        /**
+         * @return 被委托的通用参数 Builder，修改会反映到本 Builder；
+         * 声道数与采样位宽在 {@link #build()} 时由声道设置和编码制式换算，在这里设置无效
+         */
+        public RecordConfig.Builder getRecordConfigBuilder() {
+            return mBuilder;
         }
 
         public AudioRecordConfigBuilder withAudioRecordDir(String AudioRecordDir) {
-            this.mAudioRecordDir = AudioRecordDir;
+            mBuilder.withAudioRecordDir(AudioRecordDir);
             return this;
         }
 
         public AudioRecordConfigBuilder withMinRecordDuation(long minRecordDuation) {
-            this.mMinRecordDuation = minRecordDuation;
+            mBuilder.withMinRecordDuation(minRecordDuation);
             return this;
         }
 
         public AudioRecordConfigBuilder withRecordDuation(long recordDuation) {
-            this.mRecordDuation = recordDuation;
+            mBuilder.withRecordDuation(recordDuation);
             return this;
         }
 
         public AudioRecordConfigBuilder withRecordFormat(SoundRecordFormat RecordFormat) {
-            this.mRecordFormat = RecordFormat;
+            mBuilder.withRecordFormat(RecordFormat);
             return this;
         }
 
@@ -127,32 +101,134 @@ public class SoundRecordConfig {
         }
 
         public AudioRecordConfigBuilder withSampleRateInHz(int SampleRateInHz) {
-            this.mSampleRateInHz = SampleRateInHz;
+            mBuilder.withSampleRateInHz(SampleRateInHz);
+            return this;
+        }
+
+        public AudioRecordConfigBuilder withFftFrameSize(int fftFrameSize) {
+            mBuilder.withFftFrameSize(fftFrameSize);
+            return this;
+        }
+
+        public AudioRecordConfigBuilder withFftHopSize(int fftHopSize) {
+            mBuilder.withFftHopSize(fftHopSize);
+            return this;
+        }
+
+        public AudioRecordConfigBuilder withFftWindow(WindowFunction fftWindow) {
+            mBuilder.withFftWindow(fftWindow);
+            return this;
+        }
+
+        public AudioRecordConfigBuilder withFftPrecision(FftPrecision fftPrecision) {
+            mBuilder.withFftPrecision(fftPrecision);
+            return this;
+        }
+
+        /**
+         * @param writeBufferSize 写文件缓冲区大小，建议 64KB ~ 1MB
+         */
+        public AudioRecordConfigBuilder withWriteBufferSize(int writeBufferSize) {
+            mBuilder.withWriteBufferSize(writeBufferSize);
+            return this;
+        }
+
+        public AudioRecordConfigBuilder withFlushPolicy(FlushPolicy flushPolicy) {
+            mBuilder.withFlushPolicy(flushPolicy);
+            return this;
+        }
+
+        /**
+         * @param displayRate 音量、频谱、计时回调每秒最多投递次数，0 为不限制
+         */
+        public AudioRecordConfigBuilder withDisplayRate(int displayRate) {
+            mBuilder.withDisplayRate(displayRate);
+            return this;
+        }
+
+        /**
+         * @param levelWindowMillis 音量统计窗口，毫秒，每个窗口计算一次峰值与均方根
+         */
+        public AudioRecordConfigBuilder withLevelWindow(int levelWindowMillis) {
+            mBuilder.withLevelWindow(levelWindowMillis);
+            return this;
+        }
+
+        /**
+         * @param attackMillis  音量上升的平滑时间，毫秒，0 为不平滑
+         * @param releaseMillis 音量下降的平滑时间，毫秒，0 为不平滑
+         */
+        public AudioRecordConfigBuilder withLevelSmoothing(int attackMillis, int releaseMillis) {
+            mBuilder.withLevelSmoothing(attackMillis, releaseMillis);
+            return this;
+        }
+
+        /**
+         * @param stateExecutor 状态与错误回调 OnRecordStateListener 的执行器
+         */
+        public AudioRecordConfigBuilder withStateExecutor(Executor stateExecutor) {
+            mBuilder.withStateExecutor(stateExecutor);
+            return this;
+        }
+
+        /**
+         * @param resultExecutor 录音文件回调 OnRecordResultListener 的执行器
+         */
+        public AudioRecordConfigBuilder withResultExecutor(Executor resultExecutor) {
+            mBuilder.withResultExecutor(resultExecutor);
+            return this;
+        }
+
+        /**
+         * @param dataExecutor 音频数据回调 OnRecordDataListener 的执行器
+         * <p>
+         * 传入 {@link SoundRecorder#DIRECT_EXECUTOR} 时在采集线程中直接回调，不复制、不切换线程，
+         * 回调中不得执行耗时操作，否则会阻塞采集
+         */
+        public AudioRecordConfigBuilder withDataExecutor(Executor dataExecutor) {
+            mBuilder.withDataExecutor(dataExecutor);
+            return this;
+        }
+
+        /**
+         * @param soundSizeExecutor 音量回调 OnRecordSoundSizeListener 的执行器
+         */
+        public AudioRecordConfigBuilder withSoundSizeExecutor(Executor soundSizeExecutor) {
+            mBuilder.withSoundSizeExecutor(soundSizeExecutor);
+            return this;
+        }
+
+        /**
+         * @param fftDataExecutor 可视化数据回调 OnRecordFftDataListener 的执行器
+         */
+        public AudioRecordConfigBuilder withFftDataExecutor(Executor fftDataExecutor) {
+            mBuilder.withFftDataExecutor(fftDataExecutor);
+            return this;
+        }
+
+        /**
+         * @param countDownExecutor 计时回调 OnRecordCountDownTimerListener 的执行器
+         */
+        public AudioRecordConfigBuilder withCountDownExecutor(Executor countDownExecutor) {
+            mBuilder.withCountDownExecutor(countDownExecutor);
             return this;
         }
 
         public AudioRecordConfigBuilder but() {
-            return create(mContext).
-                    withAudioRecordDir(mAudioRecordDir).
-                    withRecordDuation(mRecordDuation).
-                    withMinRecordDuation(mMinRecordDuation).
-                    withRecordFormat(mRecordFormat).
+            return new AudioRecordConfigBuilder(mContext, mBuilder.but()).
                     withChannelConfig(mChannelConfig).
-                    withAudioFormat(mAudioFormat).
-                    withSampleRateInHz(mSampleRateInHz);
+                    withAudioFormat(mAudioFormat);
         }
 
+        /**
+         * @throws IllegalArgumentException 声道设置、编码制式、FFT 帧长或帧移不支持
+         */
         public SoundRecordConfig build() {
-            SoundRecordConfig audioRecordConfig = new SoundRecordConfig();
-            audioRecordConfig.mSampleRateInHz = this.mSampleRateInHz;
-            audioRecordConfig.mContext = this.mContext;
-            audioRecordConfig.mRecordFormat = this.mRecordFormat;
-            audioRecordConfig.mChannelConfig = this.mChannelConfig;
-            audioRecordConfig.mAudioRecordDir = this.mAudioRecordDir;
-            audioRecordConfig.mAudioFormat = this.mAudioFormat;
-            audioRecordConfig.mRecordDuation = this.mRecordDuation;
-            audioRecordConfig.mMinRecordDuation = this.mMinRecordDuation;
-            return audioRecordConfig;
+            RecordConfig config = mBuilder.but().
+                    withChannelCount(toChannelCount(mChannelConfig)).
+                    withEncoding(toEncoding(mAudioFormat)).
+                    build();
+            return new SoundRecordConfig(config, mContext, mChannelConfig, mAudioFormat);
         }
     }
 
@@ -160,18 +236,6 @@ public class SoundRecordConfig {
         return mContext;
     }
 
-    public long getRecordDuation() {
-        return mRecordDuation;
-    }
-
-    public String getAudioRecordDir() {
-        return mAudioRecordDir;
-    }
-
-    public SoundRecordFormat getRecordFormat() {
-        return mRecordFormat;
-    }
-
     public int getChannelConfig() {
         return mChannelConfig;
     }
@@ -180,23 +244,15 @@ public class SoundRecordConfig {
         return mAudioFormat;
     }
 
-    public int getSampleRateInHz() {
-        return mSampleRateInHz;
-    }
-
-    public long getMinRecordDuation() {
-        return mMinRecordDuation;
-    }
-
     /**
-     * 当前的声道数
+     * 声道设置转声道数
      *
      * @return 声道数： 0：error
      */
-    public int getChannelCount() {
-        if (mChannelConfig == AudioFormat.CHANNEL_IN_MONO) {
+    private static int toChannelCount(int channelConfig) {
+        if (channelConfig == AudioFormat.CHANNEL_IN_MONO) {
             return 1;
-        } else if (mChannelConfig == AudioFormat.CHANNEL_IN_STEREO) {
+        } else if (channelConfig == AudioFormat.CHANNEL_IN_STEREO) {
             return 2;
         } else {
             return 0;
@@ -204,14 +260,14 @@ public class SoundRecordConfig {
     }
 
     /**
-     * 获取当前录音的采样位宽 单位bit
+     * 编码制式转采样位宽 单位bit
      *
      * @return 采样位宽 0: error
      */
-    public int getEncoding() {
-        if (mAudioFormat == AudioFormat.ENCODING_PCM_8BIT) {
+    private static int toEncoding(int audioFormat) {
+        if (audioFormat == AudioFormat.ENCODING_PCM_8BIT) {
             return 8;
-        } else if (mAudioFormat == AudioFormat.ENCODING_PCM_16BIT) {
+        } else if (audioFormat == AudioFormat.ENCODING_PCM_16BIT) {
             return 16;
         } else {
             return 0;
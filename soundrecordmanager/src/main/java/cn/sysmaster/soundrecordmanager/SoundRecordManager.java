@@ -1,621 +1,170 @@
 package cn.sysmaster.soundrecordmanager;
 
 import android.content.Context;
-import android.media.AudioRecord;
-import android.media.MediaRecorder;
 import android.os.Handler;
 import android.os.Looper;
 
-import java.io.BufferedInputStream;
-import java.io.BufferedOutputStream;
 import java.io.File;
-import java.io.FileInputStream;
-import java.io.FileOutputStream;
-import java.io.IOException;
-import java.text.SimpleDateFormat;
-import java.util.ArrayList;
-import java.util.Date;
-import java.util.List;
-import java.util.Locale;
+import java.util.concurrent.Executor;
+import java.util.concurrent.Future;
 
-import cn.sysmaster.soundrecordmanager.countdown.CountDownTimerSupport;
-import cn.sysmaster.soundrecordmanager.countdown.OnCountDownTimerListener;
-import cn.sysmaster.soundrecordmanager.fftlib.ByteUtils;
-import cn.sysmaster.soundrecordmanager.fftlib.FFT;
+import cn.sysmaster.soundrecordmanager.core.LevelMeter;
+import cn.sysmaster.soundrecordmanager.core.RecordStats;
+import cn.sysmaster.soundrecordmanager.core.SoundRecorder;
 import cn.sysmaster.soundrecordmanager.listener.OnRecordCountDownTimerListener;
 import cn.sysmaster.soundrecordmanager.listener.OnRecordDataListener;
+import cn.sysmaster.soundrecordmanager.listener.OnRecordDataRangeListener;
 import cn.sysmaster.soundrecordmanager.listener.OnRecordFftDataListener;
 import cn.sysmaster.soundrecordmanager.listener.OnRecordResultListener;
 import cn.sysmaster.soundrecordmanager.listener.OnRecordSoundSizeListener;
 import cn.sysmaster.soundrecordmanager.listener.OnRecordStateListener;
-import cn.sysmaster.soundrecordmanager.utils.WavUtils;
+import cn.sysmaster.soundrecordmanager.source.MicAudioSource;
 
 
 /**
  * @author dabo
  * @date 2019/4/12
  * @describe 录制音频管理类
+ * <p>
+ * 录音逻辑在 {@link SoundRecorder} 中实现，这里负责麦克风数据源与主线程回调。
  */
 public class SoundRecordManager {
 
-    /**
-     * 当前录制状态
-     */
-    private volatile int mState = SoundRecordState.IDLE;
-    /**
-     * 录音参数配置类
-     */
-    private SoundRecordConfig mSoundRecordConfig;
-
-    /**
-     * 录制文件集合，如果有暂停操作会生成多个文件，用于最后合成
-     */
-    private List<File> mPcmFiles = new ArrayList<>();
-    /**
-     * 录音文件
-     */
-    private File mResultFile;
-    /**
-     * pcm源文件
-     */
-    private File mPcmFile;
-
-    /**
-     * 录音执行子线程
-     */
-    private AudioRecordThread mAudioRecordThread;
+    private final Handler mMainHandler = new Handler(Looper.getMainLooper());
 
     /**
-     * 录音倒计时
+     * 主线程回调
      */
-    private CountDownTimerSupport mTimerSupport;
+    private final Executor mMainExecutor = new Executor() {
+        @Override
+        public void execute(Runnable command) {
+            mMainHandler.post(command);
+        }
+    };
 
     /**
-     * 已录时间
+     * 录音参数配置类
      */
-    private long mRecordedTime = 0L;
-
-    private Handler mMainHandler = new Handler(Looper.getMainLooper());
+    private SoundRecordConfig mSoundRecordConfig;
 
     /**
-     * 录音计时监听
-     */
-    private OnRecordCountDownTimerListener mOnRecordCountDownTimerListener;
-    /**
-     * 当前录制状态监听
-     */
-    private OnRecordStateListener mRecordStateListener;
-    /**
-     * 录制音量大小监听
-     */
-    private OnRecordSoundSizeListener mRecordSoundSizeListener;
-    /**
-     * 录制监听
-     */
-    private OnRecordDataListener mRecordDataListener;
-    /**
-     * 录音文件
-     */
-    private OnRecordResultListener mRecordResultListener;
-    /**
-     * 录音可视化数据
+     * 录音引擎
      */
-    private OnRecordFftDataListener mRecordFftDataListener;
-
-    private SoundRecordManager() {
-    }
+    private final SoundRecorder mRecorder;
 
     public SoundRecordManager(Context context) {
         mSoundRecordConfig = SoundRecordConfig.AudioRecordConfigBuilder
                 .create(context)
                 .build();
+        mRecorder = new SoundRecorder(mSoundRecordConfig, mMainExecutor);
+        mRecorder.setAudioSource(new MicAudioSource(mSoundRecordConfig));
     }
 
     public void setSoundRecordConfig(SoundRecordConfig config) {
         this.mSoundRecordConfig = config;
+        mRecorder.setConfig(config);
+        mRecorder.setAudioSource(new MicAudioSource(config));
     }
 
-
     /**
-     * 初始化倒计时
+     * 预先准备麦克风、结果文件与缓冲区，之后 start 立即开始读取，适合按住说话等场景；可不调用
      */
-    private void initCountDown() {
-        mTimerSupport = new CountDownTimerSupport(mSoundRecordConfig.getRecordDuation(), 1000);
-        mTimerSupport.setOnCountDownTimerListener(new OnCountDownTimerListener() {
-            @Override
-            public void onTick(long millisUntilFinished) {
-                mRecordedTime += millisUntilFinished;
-                if (null != mOnRecordCountDownTimerListener) {
-                    mOnRecordCountDownTimerListener.onTick(millisUntilFinished);
-                }
-            }
-
-            @Override
-            public void onFinish() {
-                // 停止录音
-                stop();
-                if (null != mOnRecordCountDownTimerListener) {
-                    mOnRecordCountDownTimerListener.onFinish();
-                }
-            }
-        });
-
-        mTimerSupport.reset();
-        mTimerSupport.start();
+    public void prepare() {
+        mRecorder.prepare();
     }
 
     /**
      * 开始录制
      */
     public void start() {
-        mRecordedTime = 0;
-        if (mState != SoundRecordState.IDLE) {
-            return;
-        }
-        // 录音文件
-        mResultFile = new File(getResultFilePath());
-        String pcmFilePath = getPcmFilePath();
-        mPcmFile = new File(pcmFilePath);
-
-        // 开启录制线程
-        mAudioRecordThread = new AudioRecordThread();
-        mAudioRecordThread.start();
-        initCountDown();
+        mRecorder.start();
     }
 
     /**
-     * 停止录制
+     * 停止录制，立即返回，不在调用线程中读写文件
+     *
+     * @return 本次录音的结果，见 {@link SoundRecorder#stop()}
      */
-    public void stop() {
-        if (mState == SoundRecordState.IDLE) {
-            // 状态异常
-            return;
-        }
-
-        if (mState == SoundRecordState.PAUSE) {
-            makeFile();
-            mState = SoundRecordState.IDLE;
-        } else {
-            mState = SoundRecordState.STOP;
-        }
-        notifyState();
+    public Future<File> stop() {
+        return mRecorder.stop();
     }
 
     /**
      * 暂停录制
      */
     public void pause() {
-        if (mState != SoundRecordState.RECORDING) {
-            return;
-        }
-        mState = SoundRecordState.PAUSE;
-        notifyState();
-        // 暂停计时
-        if (mTimerSupport != null) {
-            mTimerSupport.pause();
-        }
+        mRecorder.pause();
     }
 
     /**
      * 继续录制
      */
     public void resume() {
-        if (mState != SoundRecordState.PAUSE) {
-            return;
-        }
-        String pcmFilePath = getPcmFilePath();
-        mPcmFile = new File(pcmFilePath);
-        mAudioRecordThread = new AudioRecordThread();
-        mAudioRecordThread.start();
-        // 继续计时
-        if (mTimerSupport != null) {
-            mTimerSupport.resume();
-        }
-    }
-
-
-    private class AudioRecordThread extends Thread {
-        /**
-         * 录制缓冲区大小
-         */
-        private int bufferSize;
-        private AudioRecord mAudioRecord;
-
-        AudioRecordThread() {
-            bufferSize = AudioRecord.getMinBufferSize(
-                    mSoundRecordConfig.getSampleRateInHz(),
-                    mSoundRecordConfig.getChannelConfig(),
-                    mSoundRecordConfig.getAudioFormat());
-            mAudioRecord = new AudioRecord(
-                    MediaRecorder.AudioSource.MIC,
-                    mSoundRecordConfig.getSampleRateInHz(),
-                    mSoundRecordConfig.getChannelConfig(),
-                    mSoundRecordConfig.getAudioFormat(),
-                    bufferSize);
-        }
-
-        @Override
-        public void run() {
-            super.run();
-            startPcmRecorder();
-        }
-
-        /**
-         * 开始pcm录制
-         * pcm是{@link AudioRecord}录制的源文件，不能播放，之后需要自己转换操作
-         */
-        private void startPcmRecorder() {
-            // 当前状态：录制中
-            mState = SoundRecordState.RECORDING;
-            // 同步录制状态
-            notifyState();
-            FileOutputStream fos = null;
-            try {
-                fos = new FileOutputStream(mPcmFile);
-                mAudioRecord.startRecording();
-                byte[] byteBuffer = new byte[bufferSize];
-
-                while (mState == SoundRecordState.RECORDING) {
-                    int end = mAudioRecord.read(byteBuffer, 0, byteBuffer.length);
-                    notifyData(byteBuffer);
-                    fos.write(byteBuffer, 0, end);
-                    fos.flush();
-                }
-                mAudioRecord.stop();
-                mPcmFiles.add(mPcmFile);
-                if (mState == SoundRecordState.STOP) {
-                    // 计时停止
-                    if (mTimerSupport != null) {
-                        mTimerSupport.reset();
-                    }
-                    // 判断是否满足最小时长
-                    if (mSoundRecordConfig.getMinRecordDuation() > mRecordedTime) {
-                        mMainHandler.post(new Runnable() {
-                            @Override
-                            public void run() {
-                                if (null != mOnRecordCountDownTimerListener) {
-                                    mOnRecordCountDownTimerListener.onNotEnough();
-                                }
-                            }
-                        });
-                        // 删除文件
-                        mResultFile.delete();
-                        for (int i = 0; i < mPcmFiles.size(); i++) {
-                            mPcmFiles.get(i).delete();
-                        }
-                        mPcmFiles.clear();
-                    } else {
-                        makeFile();
-                    }
-                } else {
-                    // 暂停
-                }
-            } catch (Exception e) {
-                e.printStackTrace();
-                notifyError("录音失败");
-            } finally {
-                try {
-                    if (fos != null) {
-                        fos.close();
-                    }
-                } catch (IOException e) {
-                    e.printStackTrace();
-                }
-            }
-            if (mState != SoundRecordState.PAUSE) {
-                mState = SoundRecordState.IDLE;
-                notifyState();
-            }
-
-        }
+        mRecorder.resume();
     }
 
     /**
-     * 录制完成，根据文件类型进行合并
+     * 当前录制状态 {@link SoundRecordState}
      */
-    private void makeFile() {
-        // 指定的录音格式，例如 wav
-        switch (mSoundRecordConfig.getRecordFormat()) {
-            case WAV:
-                mergePcmFile();
-                makeWav();
-                break;
-            case PCM:
-                mergePcmFile();
-                break;
-            default:
-                break;
-        }
-        notifyFinish();
+    public int getState() {
+        return mRecorder.getState();
     }
 
-
     /**
-     * 录制状态通知
+     * 当前或最近一次录音的电平表，可读取峰值、均方根与 dBFS
      */
-    private void notifyState() {
-        if (mRecordStateListener == null) {
-            return;
-        }
-        mMainHandler.post(new Runnable() {
-            @Override
-            public void run() {
-                mRecordStateListener.onStateChange(mState);
-            }
-        });
-
-        if (mState == SoundRecordState.STOP || mState == SoundRecordState.PAUSE) {
-            // 暂停、停止录音时，音量为0，很对
-            if (mRecordSoundSizeListener != null) {
-                mRecordSoundSizeListener.onSoundSize(0);
-            }
-        }
-    }
-
-    /**
-     * 录制中数据通知
-     *
-     * @param data 录制的音频
-     */
-    private void notifyData(final byte[] data) {
-        mMainHandler.post(new Runnable() {
-            @Override
-            public void run() {
-                if (mRecordDataListener != null) {
-                    mRecordDataListener.onData(data);
-                }
-
-                if (mRecordFftDataListener != null) {
-                    byte[] fftData = makeData(data);
-                    if (fftData != null) {
-                        if (mRecordSoundSizeListener != null) {
-                            mRecordSoundSizeListener.onSoundSize(getDb(fftData));
-                        }
-                        mRecordFftDataListener.onFftData(fftData);
-                    }
-                }
-
-            }
-        });
-    }
-
-    /**
-     * 录制完成通知
-     */
-    private void notifyFinish() {
-        mMainHandler.post(new Runnable() {
-            @Override
-            public void run() {
-                if (mRecordStateListener != null) {
-                    mRecordStateListener.onStateChange(SoundRecordState.FINISH);
-                }
-                if (mRecordResultListener != null) {
-                    mRecordResultListener.onResult(mResultFile);
-                }
-            }
-        });
-    }
-
-    /**
-     * 录制失败通知
-     *
-     * @param error 失败信息
-     */
-    private void notifyError(final String error) {
-        if (mRecordStateListener == null) {
-            return;
-        }
-        mMainHandler.post(new Runnable() {
-            @Override
-            public void run() {
-                mRecordStateListener.onError(error);
-            }
-        });
-    }
-
-
-    /**
-     * 合并文件
-     */
-    private void mergePcmFile() {
-        boolean mergeSuccess = mergePcmFiles(mResultFile, mPcmFiles);
-        if (!mergeSuccess) {
-            notifyError("合并失败");
-        }
-    }
-
-    /**
-     * 合并Pcm文件
-     *
-     * @param recordFile 输出文件
-     * @param files      多个文件源
-     * @return 是否成功
-     */
-    private boolean mergePcmFiles(File recordFile, List<File> files) {
-        if (recordFile == null || files == null || files.size() <= 0) {
-            return false;
-        }
-
-        FileOutputStream fos = null;
-        BufferedOutputStream outputStream = null;
-        byte[] buffer = new byte[1024];
-        try {
-            fos = new FileOutputStream(recordFile);
-            outputStream = new BufferedOutputStream(fos);
-
-            for (int i = 0; i < files.size(); i++) {
-                BufferedInputStream inputStream = new BufferedInputStream(new FileInputStream(files.get(i)));
-                int readCount;
-                while ((readCount = inputStream.read(buffer)) > 0) {
-                    outputStream.write(buffer, 0, readCount);
-                }
-                inputStream.close();
-            }
-        } catch (Exception e) {
-            e.printStackTrace();
-            return false;
-        } finally {
-            try {
-                if (fos != null) {
-                    fos.close();
-                }
-                if (outputStream != null) {
-                    outputStream.close();
-                }
-            } catch (IOException e) {
-                e.printStackTrace();
-            }
-        }
-        for (int i = 0; i < files.size(); i++) {
-            files.get(i).delete();
-        }
-        files.clear();
-        return true;
+    public LevelMeter getLevelMeter() {
+        return mRecorder.getLevelMeter();
     }
 
     /**
-     * 添加Wav头文件
+     * 当前或最近一次录音已写入的时长，毫秒，按采样数计算
      */
-    private void makeWav() {
-        if (!WavUtils.isFile(mResultFile) || mResultFile.length() == 0) {
-            return;
-        }
-        byte[] header = WavUtils.generateWavFileHeader((int) mResultFile.length(), mSoundRecordConfig.getSampleRateInHz(), mSoundRecordConfig.getChannelCount(), mSoundRecordConfig.getEncoding());
-        WavUtils.writeHeader(mResultFile, header);
-    }
-
-    private byte[] makeData(byte[] data) {//data.length = 1280
-        if (data.length < 1024) {
-            return null;
-        }
-        try {
-            double[] ds = toDouble(ByteUtils.toShorts(data));
-
-            double[] fft = FFT.fft(ds, 62);
-            //start
-            double[] newFft = new double[128];
-            for (int i = 16; i < 16 + newFft.length; i++) {
-                if (i < 24) {
-                    newFft[i - 16] = fft[i] * 0.2;
-                } else if (i < 36) {
-                    newFft[i - 16] = fft[i] * 0.4;
-                } else if (i < 48) {
-                    newFft[i - 16] = fft[i] * 0.6;
-                } else {
-                    newFft[i - 16] = fft[i];
-                }
-                if (newFft[i - 16] < 10 * 128) {
-                    newFft[i - 16] = newFft[i - 16] * 0.6;
-                }
-            }
-            fft = newFft;
-            //end
-            int step = fft.length / 128;
-            byte[] fftBytes = new byte[128];
-
-            //压缩128基准
-            int scale = 128;
-            double max = getMax(fft);
-            //高音优化
-            if (max > 128 * 128) {
-                scale = (int) (max / 128) + 2;
-            }
-
-            for (int i = 0; i < fftBytes.length; i++) {
-                double tmp = fft[i * step] / scale;
-                if (tmp > 127) {
-                    fftBytes[i] = 127;
-                } else if (tmp < -128) {
-                    fftBytes[i] = -127;
-
-                } else {
-                    fftBytes[i] = (byte) tmp;
-                }
-            }
-            return fftBytes;
-        } catch (Exception e) {
-            e.printStackTrace();
-        }
-        return null;
-    }
-
-    private double getMax(double[] data) {
-        double max = 0;
-        for (int i = 0; i < data.length; i++) {
-            if (data[i] > max) {
-                max = data[i];
-            }
-        }
-
-        return max;
-    }
-
-    private int getDb(byte[] data) {
-        double sum = 0;
-        double ave;
-        int length = data.length > 128 ? 128 : data.length;
-        for (int i = 0; i < length; i++) {
-            sum += data[i];
-        }
-        ave = sum / length;
-        sum += (Math.pow(ave, 4) / Math.pow((128F - ave), 2));
-        int i = (int) (Math.log10((sum / length) * 53536F) * 10);
-        return i < 0 ? 27 : i;
-    }
-
-    private double[] toDouble(short[] bytes) {
-        int length = 512;
-        double[] ds = new double[length];
-        for (int i = 0; i < length; i++) {
-            ds[i] = bytes[i];
-        }
-        return ds;
+    public long getRecordedTime() {
+        return mRecorder.getRecordedTime();
     }
 
     /**
-     * 根据当前的时间生成相应的文件名
-     * 实例 record_20160101_13_15_12
+     * 当前或最近一次录音的统计，包括开始到第一块数据的耗时
      */
-    private String getPcmFilePath() {
-        String fileDir = mSoundRecordConfig.getAudioRecordDir() + "pcm/";
-        createOrExistsDir(new File(fileDir));
-        String fileName = new SimpleDateFormat("yyyyMMdd_HH_mm_ss", Locale.SIMPLIFIED_CHINESE).format(new Date(System.currentTimeMillis()));
-        return String.format(Locale.getDefault(), "%s%s.pcm", fileDir, fileName);
-    }
-
-    private String getResultFilePath() {
-        String fileDir = mSoundRecordConfig.getAudioRecordDir();
-        createOrExistsDir(new File(fileDir));
-        String fileName = new SimpleDateFormat("yyyyMMdd_HH_mm_ss", Locale.SIMPLIFIED_CHINESE).format(new Date(System.currentTimeMillis()));
-        return String.format(Locale.getDefault(), "%s%s%s", fileDir, fileName, mSoundRecordConfig.getRecordFormat().getExtension());
+    public RecordStats getStats() {
+        return mRecorder.getStats();
     }
 
     public boolean createOrExistsDir(final File file) {
-        return file != null && (file.exists() ? file.isDirectory() : file.mkdirs());
+        return mRecorder.createOrExistsDir(file);
     }
 
 
     public void setRecordStateListener(OnRecordStateListener recordStateListener) {
-        mRecordStateListener = recordStateListener;
+        mRecorder.setRecordStateListener(recordStateListener);
     }
 
     public void setOnRecordCountDownTimerListener(OnRecordCountDownTimerListener onRecordCountDownTimerListener) {
-        mOnRecordCountDownTimerListener = onRecordCountDownTimerListener;
+        mRecorder.setOnRecordCountDownTimerListener(onRecordCountDownTimerListener);
     }
 
     public void setRecordSoundSizeListener(OnRecordSoundSizeListener recordSoundSizeListener) {
-        mRecordSoundSizeListener = recordSoundSizeListener;
+        mRecorder.setRecordSoundSizeListener(recordSoundSizeListener);
     }
 
+    /**
+     * @deprecated 每次回调都会复制一份数据，请使用 {@link #setRecordDataRangeListener(OnRecordDataRangeListener)}
+     */
+    @Deprecated
     public void setRecordDataListener(OnRecordDataListener recordDataListener) {
-        mRecordDataListener = recordDataListener;
+        mRecorder.setRecordDataListener(recordDataListener);
+    }
+
+    public void setRecordDataRangeListener(OnRecordDataRangeListener recordDataListener) {
+        mRecorder.setRecordDataRangeListener(recordDataListener);
     }
 
     public void setRecordResultListener(OnRecordResultListener recordResultListener) {
-        mRecordResultListener = recordResultListener;
+        mRecorder.setRecordResultListener(recordResultListener);
     }
 
     public void setRecordFftDataListener(OnRecordFftDataListener recordFftDataListener) {
-        mRecordFftDataListener = recordFftDataListener;
+        mRecorder.setRecordFftDataListener(recordFftDataListener);
     }
 }
@@ -3,17 +3,48 @@ package cn.sysmaster.soundrecordmanager.countdown;
 import android.os.CountDownTimer;
 import android.os.Handler;
 
-import java.util.Timer;
 import java.util.TimerTask;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+
+import cn.sysmaster.soundrecordmanager.core.RecordScheduler;
 
 /**
  * author  dengyuhan
  * created 2017/5/16 11:32
+ * <p>
+ * 所有计时器共用 {@link RecordScheduler#get()} 的定时线程，start / resume 只提交一个定时任务，
+ * pause / stop 取消该任务，不创建线程。各方法可在任意线程调用。
+ * 默认通过创建计时器的线程的 Handler 回调，与之前一致，需在有 Looper 的线程（如主线程）创建；
+ * 构造时传入 {@link #DIRECT} 可直接在共享定时线程中回调，此时回调中不要执行耗时操作或操作 UI。
+ * <p>
+ * 录音计时由录音引擎按已采集的采样回调（OnRecordCountDownTimerListener），不使用此类；
+ * 此类作为公开的倒计时工具保留，供应用自行使用。
  */
 public class CountDownTimerSupport implements ITimerSupport {
-    private Timer mTimer;
+    /**
+     * 直接在共享定时线程中回调，通过构造方法传入
+     */
+    public static final Executor DIRECT = new Executor() {
+        @Override
+        public void execute(Runnable command) {
+            command.run();
+        }
+    };
+
+    private final ScheduledExecutorService mScheduler = RecordScheduler.get();
+
+    /**
+     * 当前的计时任务，暂停、停止后为 null
+     */
+    private TickTask mTask;
 
-    private Handler mHandler;
+    /**
+     * 回调执行器，默认投递到创建计时器的线程
+     */
+    private Executor mCallbackExecutor;
 
     /**
      * 倒计时时间
@@ -27,60 +58,91 @@ public class CountDownTimerSupport implements ITimerSupport {
     /**
      * 倒计时剩余时间
      */
-    private long mMillisUntilFinished;
+    private volatile long mMillisUntilFinished;
 
-    private OnCountDownTimerListener mOnCountDownTimerListener;
+    private volatile OnCountDownTimerListener mOnCountDownTimerListener;
 
-    private TimerState mTimerState = TimerState.FINISH;
+    private volatile TimerState mTimerState = TimerState.FINISH;
+
+    /**
+     * 计时回调相对计划时间的延迟，微秒
+     */
+    private volatile long mLastTickJitterMicros;
+    private volatile long mMaxTickJitterMicros;
 
     @Deprecated
     public CountDownTimerSupport() {
-        this.mHandler = new Handler();
+        this.mCallbackExecutor = callerThread();
     }
 
     public CountDownTimerSupport(long millisInFuture, long countDownInterval) {
+        this(millisInFuture, countDownInterval, callerThread());
+    }
+
+    /**
+     * @param callbackExecutor 回调执行器，传入 {@link #DIRECT} 时直接在共享定时线程回调
+     */
+    public CountDownTimerSupport(long millisInFuture, long countDownInterval, Executor callbackExecutor) {
         this.setMillisInFuture(millisInFuture);
         this.setCountDownInterval(countDownInterval);
-        this.mHandler = new Handler();
+        this.mCallbackExecutor = callbackExecutor;
+    }
+
+    /**
+     * 投递到当前线程 Looper 的执行器
+     */
+    private static Executor callerThread() {
+        final Handler handler = new Handler();
+        return new Executor() {
+            @Override
+            public void execute(Runnable command) {
+                handler.post(command);
+            }
+        };
     }
 
     @Override
-    public void start() {
+    public synchronized void start() {
         //防止重复启动 重新启动要先reset再start
-        if (mTimer == null && mTimerState != TimerState.START) {
-            mTimer = new Timer();
-            mTimer.scheduleAtFixedRate(createTimerTask(), 0, mCountDownInterval);
+        if (mTask == null && mTimerState != TimerState.START) {
+            if (mTimerState == TimerState.FINISH) {
+                mLastTickJitterMicros = 0;
+                mMaxTickJitterMicros = 0;
+            }
+            mTask = new TickTask(mMillisUntilFinished);
+            mTask.schedule();
             mTimerState = TimerState.START;
         }
     }
 
     @Override
-    public void pause() {
-        if (mTimer != null && mTimerState == TimerState.START) {
-            cancelTimer();
+    public synchronized void pause() {
+        if (mTask != null && mTimerState == TimerState.START) {
+            cancelTask();
             mTimerState = TimerState.PAUSE;
         }
     }
 
     @Override
-    public void resume() {
+    public synchronized void resume() {
         if (mTimerState == TimerState.PAUSE) {
             start();
         }
     }
 
     @Override
-    public void stop() {
-        if (mTimer != null) {
-            cancelTimer();
+    public synchronized void stop() {
+        if (mTask != null) {
+            cancelTask();
             mMillisUntilFinished = mMillisInFuture;
             mTimerState = TimerState.FINISH;
 
-            mHandler.post(new Runnable() {
+            mCallbackExecutor.execute(new Runnable() {
                 @Override
                 public void run() {
-                    if (mOnCountDownTimerListener != null) {
-                        mOnCountDownTimerListener.onFinish();
+                    OnCountDownTimerListener listener = mOnCountDownTimerListener;
+                    if (listener != null) {
+                        listener.onFinish();
                     }
                 }
             });
@@ -88,19 +150,29 @@ public class CountDownTimerSupport implements ITimerSupport {
     }
 
     @Override
-    public void reset() {
-        if (mTimer != null) {
-            cancelTimer();
+    public synchronized void reset() {
+        if (mTask != null) {
+            cancelTask();
         }
         mMillisUntilFinished = mMillisInFuture;
         mTimerState = TimerState.FINISH;
     }
 
+    /**
+     * 计时结束，期间已暂停或重新开始时不处理
+     */
+    private synchronized void finish(TickTask task) {
+        if (mTask == task) {
+            stop();
+        }
+    }
 
-    private void cancelTimer() {
-        mTimer.cancel();
-        mTimer.purge();
-        mTimer = null;
+    /**
+     * 已在执行的任务不会被中断，由 {@link TickTask#run()} 发现后退出
+     */
+    private void cancelTask() {
+        mTask.mFuture.cancel(false);
+        mTask = null;
     }
 
     public boolean isStart() {
@@ -142,6 +214,20 @@ public class CountDownTimerSupport implements ITimerSupport {
         return mTimerState;
     }
 
+    /**
+     * @return 最近一次计时回调相对计划时间的延迟，微秒
+     */
+    public long getLastTickJitterMicros() {
+        return mLastTickJitterMicros;
+    }
+
+    /**
+     * @return 从 start 开始（含暂停后继续）计时回调的最大延迟，微秒
+     */
+    public long getMaxTickJitterMicros() {
+        return mMaxTickJitterMicros;
+    }
+
     /**
      * @param millisInFuture
      * @param countDownInterval
@@ -153,44 +239,69 @@ public class CountDownTimerSupport implements ITimerSupport {
         return null;
     }
 
+    /**
+     * @return
+     * @deprecated 已改用共享定时线程，计时由内部任务完成，不再调用此方法，覆写不会生效
+     */
+    @Deprecated
     protected TimerTask createTimerTask() {
-        return new TimerTask() {
-            private long startTime = -1;
+        return null;
+    }
 
-            @Override
-            public void run() {
-                if (startTime < 0) {
-                    //第一次回调 记录开始时间
-
-                    startTime = scheduledExecutionTime() - (mMillisInFuture - mMillisUntilFinished);
-
-                    mHandler.post(new Runnable() {
-                        @Override
-                        public void run() {
-                            if (mOnCountDownTimerListener != null) {
-                                mOnCountDownTimerListener.onTick(mMillisUntilFinished);
-                            }
-                        }
-                    });
-                } else {
-                    //剩余时间
-                    mMillisUntilFinished = mMillisInFuture - (scheduledExecutionTime() - startTime);
-
-                    mHandler.post(new Runnable() {
-                        @Override
-                        public void run() {
-                            if (mOnCountDownTimerListener != null) {
-                                mOnCountDownTimerListener.onTick(mMillisUntilFinished);
-                            }
-                        }
-                    });
-                    if (mMillisUntilFinished <= 0) {
-                        //如果没有剩余时间 就停止
-                        stop();
+    /**
+     * 一次 start 或 resume 到 pause / stop 之间的计时
+     * <p>
+     * 第 n 次回调的剩余时间固定为开始时的剩余时间减 n 个间隔，不受调度延迟影响；延迟只计入抖动统计。
+     */
+    private class TickTask implements Runnable {
+        private final long mBaseMillis;
+        private long mStartNanos;
+        private long mTicks;
+        private ScheduledFuture<?> mFuture;
+
+        TickTask(long baseMillis) {
+            mBaseMillis = baseMillis;
+        }
+
+        void schedule() {
+            mStartNanos = System.nanoTime();
+            mFuture = mScheduler.scheduleAtFixedRate(this, 0, mCountDownInterval, TimeUnit.MILLISECONDS);
+        }
+
+        @Override
+        public void run() {
+            final long millisUntilFinished;
+            synchronized (CountDownTimerSupport.this) {
+                if (mTask != this) {
+                    // 已暂停或停止
+                    return;
+                }
+                long scheduledNanos = mStartNanos + TimeUnit.MILLISECONDS.toNanos(mTicks * mCountDownInterval);
+                long jitter = TimeUnit.NANOSECONDS.toMicros(System.nanoTime() - scheduledNanos);
+                mLastTickJitterMicros = jitter;
+                if (jitter > mMaxTickJitterMicros) {
+                    mMaxTickJitterMicros = jitter;
+                }
+                //剩余时间
+                millisUntilFinished = mBaseMillis - mTicks * mCountDownInterval;
+                mTicks++;
+                mMillisUntilFinished = millisUntilFinished;
+            }
+
+            mCallbackExecutor.execute(new Runnable() {
+                @Override
+                public void run() {
+                    OnCountDownTimerListener listener = mOnCountDownTimerListener;
+                    if (listener != null) {
+                        listener.onTick(millisUntilFinished);
                     }
                 }
+            });
+            if (millisUntilFinished <= 0) {
+                //如果没有剩余时间 就停止
+                finish(this);
             }
-        };
+        }
     }
 
 }
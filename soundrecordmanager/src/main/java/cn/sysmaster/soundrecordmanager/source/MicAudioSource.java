@@ -0,0 +1,113 @@
+package cn.sysmaster.soundrecordmanager.source;
+
+import android.media.AudioRecord;
+import android.media.MediaRecorder;
+import android.os.Process;
+
+import java.io.IOException;
+
+import cn.sysmaster.soundrecordmanager.SoundRecordConfig;
+
+/**
+ * @author dabo
+ * @describe 麦克风数据源，封装 {@link AudioRecord}
+ * <p>
+ * AudioRecord 在 prepare 或第一次 start 时创建，暂停后继续只 stop / start 同一个实例，release 后再次 start 会重新创建。
+ * start 在采集线程中调用，同时把采集线程提升为音频优先级。
+ */
+public class MicAudioSource implements AudioSource {
+
+    private final int mSampleRateInHz;
+    private final int mChannelConfig;
+    private final int mAudioFormat;
+    private final int mChannelCount;
+    private final int mSampleBits;
+
+    /**
+     * 录制缓冲区大小
+     */
+    private final int mBufferSize;
+
+    private AudioRecord mAudioRecord;
+
+    public MicAudioSource(SoundRecordConfig config) {
+        this.mSampleRateInHz = config.getSampleRateInHz();
+        this.mChannelConfig = config.getChannelConfig();
+        this.mAudioFormat = config.getAudioFormat();
+        this.mChannelCount = config.getChannelCount();
+        this.mSampleBits = config.getEncoding();
+        this.mBufferSize = AudioRecord.getMinBufferSize(mSampleRateInHz, mChannelConfig, mAudioFormat);
+    }
+
+    @Override
+    public int getSampleRate() {
+        return mSampleRateInHz;
+    }
+
+    @Override
+    public int getChannelCount() {
+        return mChannelCount;
+    }
+
+    @Override
+    public int getSampleBits() {
+        return mSampleBits;
+    }
+
+    @Override
+    public int getBufferSize() {
+        return mBufferSize;
+    }
+
+    @Override
+    public boolean isRealtime() {
+        return true;
+    }
+
+    @Override
+    public void prepare() throws IOException {
+        if (mAudioRecord == null) {
+            mAudioRecord = new AudioRecord(
+                    MediaRecorder.AudioSource.MIC,
+                    mSampleRateInHz,
+                    mChannelConfig,
+                    mAudioFormat,
+                    mBufferSize);
+        }
+        if (mAudioRecord.getState() != AudioRecord.STATE_INITIALIZED) {
+            release();
+            throw new IOException("AudioRecord 初始化失败");
+        }
+    }
+
+    @Override
+    public void start() throws IOException {
+        Process.setThreadPriority(Process.THREAD_PRIORITY_URGENT_AUDIO);
+        prepare();
+        mAudioRecord.startRecording();
+    }
+
+    @Override
+    public int read(byte[] buffer, int offset, int length) throws IOException {
+        int read = mAudioRecord.read(buffer, offset, length);
+        if (read < 0) {
+            throw new IOException("AudioRecord 读取失败：" + read);
+        }
+        return read;
+    }
+
+    @Override
+    public void stop() {
+        if (mAudioRecord != null) {
+            mAudioRecord.stop();
+        }
+    }
+
+    @Override
+    public void release() {
+        if (mAudioRecord != null) {
+            mAudioRecord.release();
+            mAudioRecord = null;
+        }
+    }
+}